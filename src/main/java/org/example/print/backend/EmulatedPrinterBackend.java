@@ -0,0 +1,137 @@
+package org.example.print.backend;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.print.component.PrinterHealthMonitor.PrinterHealth;
+import org.example.print.config.PrinterBackendProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模拟打印机后端
+ * 每台打印机同一时间只打印一个作业，耗时 = 固定耗时 + 随机抖动 + 字节数 / 打印速度；
+ * 按配置的概率随机失败或缺纸，缺纸期间作业失败、状态为不可用，持续一段时间后自动恢复。
+ * 打印机名称不需要真实存在，任何名称都对应一台模拟打印机
+ */
+@Component
+@ConditionalOnProperty(name = "print.backend.type", havingValue = "emulated")
+@Slf4j
+public class EmulatedPrinterBackend implements PrinterBackend {
+
+    private static final Capabilities CAPABILITIES = new Capabilities("emulated", true);
+
+    private final PrinterBackendProperties.Emulated config;
+    private final ConcurrentHashMap<String, EmulatedPrinter> printers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public EmulatedPrinterBackend(PrinterBackendProperties properties) {
+        this(properties.getEmulated());
+    }
+
+    public EmulatedPrinterBackend(PrinterBackendProperties.Emulated config) {
+        this.config = config;
+    }
+
+    @Override
+    public String getType() {
+        return "emulated";
+    }
+
+    @Override
+    public CompletableFuture<Completion> submit(String printerName, byte[] data) throws Exception {
+        EmulatedPrinter printer = printerOf(printerName);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // 一台打印机同一时间只能打印一个作业
+        synchronized (printer) {
+            long now = System.currentTimeMillis();
+            if (printer.isPaperOut(now)) {
+                throw new IOException("模拟打印机缺纸: " + printerName);
+            }
+            if (config.getPaperOutRate() > 0 && random.nextDouble() < config.getPaperOutRate()) {
+                printer.paperOutUntil = now + config.getPaperOutDuration();
+                log.warn("模拟打印机缺纸: {}, 持续{}毫秒", printerName, config.getPaperOutDuration());
+                throw new IOException("模拟打印机缺纸: " + printerName);
+            }
+            if (config.getFailureRate() > 0 && random.nextDouble() < config.getFailureRate()) {
+                throw new IOException("模拟打印失败: " + printerName);
+            }
+            long millis = config.getLatency();
+            if (config.getJitter() > 0) {
+                millis += random.nextLong(config.getJitter() + 1);
+            }
+            if (config.getBytesPerSecond() > 0) {
+                millis += data.length * 1000L / config.getBytesPerSecond();
+            }
+            printer.printing = true;
+            try {
+                Thread.sleep(millis);
+            } finally {
+                printer.printing = false;
+            }
+            printer.jobs.incrementAndGet();
+            printer.bytes.addAndGet(data.length);
+        }
+        // 模拟打印在返回前已经结束
+        return CompletableFuture.completedFuture(Completion.CONFIRMED);
+    }
+
+    @Override
+    public PrinterHealth getStatus(String printerName) {
+        EmulatedPrinter printer = printerOf(printerName);
+        long now = System.currentTimeMillis();
+        if (printer.isPaperOut(now)) {
+            return new PrinterHealth(printerName, false, "stopped",
+                    Collections.singletonList("media-empty(error)"), now);
+        }
+        return new PrinterHealth(printerName, true, printer.printing ? "processing" : "idle",
+                Collections.emptyList(), now);
+    }
+
+    @Override
+    public PrinterHealth probe(String printerName) {
+        return getStatus(printerName);
+    }
+
+    @Override
+    public Capabilities getCapabilities(String printerName) {
+        return CAPABILITIES;
+    }
+
+    /**
+     * 各模拟打印机已完成的作业数和字节数
+     */
+    public Map<String, Map<String, Long>> getStatistics() {
+        Map<String, Map<String, Long>> statistics = new LinkedHashMap<>();
+        printers.forEach((name, printer) -> {
+            Map<String, Long> counters = new LinkedHashMap<>();
+            counters.put("jobs", printer.jobs.get());
+            counters.put("bytes", printer.bytes.get());
+            statistics.put(name, counters);
+        });
+        return statistics;
+    }
+
+    private EmulatedPrinter printerOf(String printerName) {
+        return printers.computeIfAbsent(printerName == null ? "" : printerName, name -> new EmulatedPrinter());
+    }
+
+    private static final class EmulatedPrinter {
+        private final AtomicLong jobs = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile long paperOutUntil;
+        private volatile boolean printing;
+
+        private boolean isPaperOut(long now) {
+            return now < paperOutUntil;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.print.backend;
+
+import org.example.print.component.PrinterHealthMonitor.PrinterHealth;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 空打印后端
+ * 直接丢弃数据并立即返回成功，用于单独测量队列、持久化和推送的吞吐上限
+ */
+@Component
+@ConditionalOnProperty(name = "print.backend.type", havingValue = "null")
+public class NullPrinterBackend implements PrinterBackend {
+
+    private static final Capabilities CAPABILITIES = new Capabilities("null", true);
+
+    @Override
+    public String getType() {
+        return "null";
+    }
+
+    @Override
+    public CompletableFuture<Completion> submit(String printerName, byte[] data) {
+        // 丢弃
+        return CompletableFuture.completedFuture(Completion.CONFIRMED);
+    }
+
+    @Override
+    public PrinterHealth getStatus(String printerName) {
+        return new PrinterHealth(printerName, true, "idle", Collections.emptyList(), System.currentTimeMillis());
+    }
+
+    @Override
+    public PrinterHealth probe(String printerName) {
+        return getStatus(printerName);
+    }
+
+    @Override
+    public Capabilities getCapabilities(String printerName) {
+        return CAPABILITIES;
+    }
+}
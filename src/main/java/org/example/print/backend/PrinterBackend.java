@@ -0,0 +1,78 @@
+package org.example.print.backend;
+
+import org.example.print.component.PrinterHealthMonitor.PrinterHealth;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 打印后端
+ * UnifiedPrintService只负责渲染和合并任务，数据最终怎样送到打印机由后端决定。
+ * 由print.backend.type选择：system(系统后台打印程序和网络打印机) / emulated(模拟打印机，用于压测) / null(丢弃数据)
+ */
+public interface PrinterBackend {
+
+    /**
+     * 后端类型，与print.backend.type一致
+     */
+    String getType();
+
+    /**
+     * 提交一个打印作业，阻塞到打印机或后台打印程序接收完数据；提交失败时抛出异常，视为打印机故障。
+     * 返回的future在作业真正结束时完成，打印失败或被取消时异常完成
+     */
+    CompletableFuture<Completion> submit(String printerName, byte[] data) throws Exception;
+
+    /**
+     * 打印机状态，只读缓存，不阻塞调用线程
+     */
+    PrinterHealth getStatus(String printerName);
+
+    /**
+     * 立即检查打印机状态，用于熔断后的探测
+     */
+    PrinterHealth probe(String printerName);
+
+    /**
+     * 打印机是否存在（已被系统发现或已配置），打印机组只在存在的成员中路由
+     */
+    default boolean isAvailable(String printerName) {
+        return true;
+    }
+
+    /**
+     * 打印机能力，决定合并作业时的分隔方式等
+     */
+    Capabilities getCapabilities(String printerName);
+
+    /**
+     * 作业结束的方式
+     */
+    enum Completion {
+        // 打印机或后台打印程序报告作业已完成
+        CONFIRMED,
+        // 数据已被接收，但无法确认打印完成（后台打印程序不再报告事件、等待超时或网络打印机没有作业状态），按完成处理
+        ASSUMED
+    }
+
+    /**
+     * 打印机能力，不可变
+     */
+    final class Capabilities {
+        private final String transport;
+        // 是否有切刀，有切刀时合并作业的各小票之间插入切纸指令
+        private final boolean cutter;
+
+        public Capabilities(String transport, boolean cutter) {
+            this.transport = transport;
+            this.cutter = cutter;
+        }
+
+        public String getTransport() {
+            return transport;
+        }
+
+        public boolean isCutter() {
+            return cutter;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package org.example.print.backend;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.print.component.PrinterHealthMonitor;
+import org.example.print.component.PrinterHealthMonitor.PrinterHealth;
+import org.example.print.component.PrinterRegistry;
+import org.example.print.component.RawTcpPrinterClient;
+import org.example.print.config.NetworkPrinterProperties;
+import org.example.print.config.PrinterGroupProperties;
+import org.example.print.service.UnifiedPrintService.PrinterNotAvailableException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.print.Doc;
+import javax.print.DocFlavor;
+import javax.print.DocPrintJob;
+import javax.print.PrintService;
+import javax.print.SimpleDoc;
+import javax.print.event.PrintJobAdapter;
+import javax.print.event.PrintJobEvent;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 真实打印机后端（默认）
+ * 配置在print.network.printers中的打印机直接通过TCP发送，其余经javax.print提交给系统后台打印程序。
+ * job.print()返回只表示后台打印程序接收了数据，这里通过PrintJobListener等待作业真正结束；
+ * 驱动不报告完成事件时，以"不再有事件"、数据传输完成后print.completion.transfer-grace内无终态事件
+ * 或print.completion.timeout超时为准按完成处理，不让沉默的驱动长时间占用打印机队列
+ */
+@Component
+@ConditionalOnProperty(name = "print.backend.type", havingValue = "system", matchIfMissing = true)
+@Slf4j
+public class SystemPrinterBackend implements PrinterBackend {
+
+    private static final Capabilities SPOOLER = new Capabilities("spooler", true);
+    private static final Capabilities TCP = new Capabilities("tcp", true);
+
+    private final PrinterRegistry printerRegistry;
+    private final PrinterHealthMonitor healthMonitor;
+    private final NetworkPrinterProperties networkPrinters;
+    private final RawTcpPrinterClient tcpClient;
+    // 打印机组成员，找不到时不回退到默认打印机
+    private final Set<String> groupMembers;
+
+    private final ScheduledExecutorService scheduler;
+    private final long completionTimeoutMillis;
+
+    @Value("${print.printer-name}")
+    private String configuredPrinterName;
+
+    // 数据已全部交给打印机后等待终态事件的时间(毫秒)
+    @Value("${print.completion.transfer-grace:2000}")
+    private long transferGraceMillis = 2000;
+
+    @Autowired
+    public SystemPrinterBackend(
+            PrinterRegistry printerRegistry,
+            PrinterHealthMonitor healthMonitor,
+            NetworkPrinterProperties networkPrinters,
+            PrinterGroupProperties groupProperties,
+            RawTcpPrinterClient tcpClient,
+            ScheduledExecutorService scheduler,
+            @Value("${print.completion.timeout:15000}") long completionTimeoutMillis) {
+        this.printerRegistry = printerRegistry;
+        this.healthMonitor = healthMonitor;
+        this.networkPrinters = networkPrinters;
+        this.tcpClient = tcpClient;
+        this.groupMembers = groupProperties.getGroups().values().stream()
+                .flatMap(Collection::stream)
+                .collect(Collectors.toSet());
+        this.scheduler = scheduler;
+        this.completionTimeoutMillis = completionTimeoutMillis;
+    }
+
+    @Override
+    public String getType() {
+        return "system";
+    }
+
+    @Override
+    public CompletableFuture<Completion> submit(String printerName, byte[] data) throws Exception {
+        InetSocketAddress networkAddress = networkPrinters.addressOf(printerName);
+        if (networkAddress != null) {
+            log.debug("提交到网络打印机: {} {}, 字节数: {}", printerName, networkAddress, data.length);
+            sendRaw(printerName, networkAddress, data);
+            // 9100端口没有作业状态，数据写完即视为完成
+            return CompletableFuture.completedFuture(Completion.ASSUMED);
+        }
+        PrintService printService = resolve(printerName);
+        if (printService == null) {
+            throw new PrinterNotAvailableException("找不到可用的打印机: " + printerName);
+        }
+        log.debug("提交到后台打印程序: {}, 字节数: {}", printService.getName(), data.length);
+
+        // 创建打印作业，在提交前注册监听器，避免漏掉提交过程中发出的事件
+        DocPrintJob job = printService.createPrintJob();
+        JobCompletionListener listener = new JobCompletionListener(printService.getName());
+        job.addPrintJobListener(listener);
+        Doc doc = new SimpleDoc(data, DocFlavor.BYTE_ARRAY.AUTOSENSE, null);
+
+        // 执行打印
+        try {
+            job.print(doc, null);
+        } finally {
+            if (listener.future.isDone()) {
+                job.removePrintJobListener(listener);
+            }
+        }
+        listener.scheduleTimeout(job);
+        return listener.future;
+    }
+
+    @Override
+    public PrinterHealth getStatus(String printerName) {
+        // 网络打印机没有后台采样，是否可用由连接结果和熔断器判断
+        if (networkPrinters.addressOf(printerName) != null) {
+            return health(printerName, true, "network");
+        }
+        PrintService printer = resolve(printerName);
+        if (printer == null) {
+            log.error("未找到打印机: {}", printerName);
+            return health(printerName, false, "not-found");
+        }
+        // 读取健康监控的快照，不在调用线程中查询打印机属性；尚未采样的视为就绪
+        PrinterHealth health = healthMonitor.get(printer.getName());
+        return health != null ? health : health(printer.getName(), true, "unknown");
+    }
+
+    @Override
+    public PrinterHealth probe(String printerName) {
+        // 网络打印机以能否建立连接为准
+        InetSocketAddress networkAddress = networkPrinters.addressOf(printerName);
+        if (networkAddress != null) {
+            try {
+                sendRaw(printerName, networkAddress, new byte[0]);
+                return health(printerName, true, "connected");
+            } catch (Exception e) {
+                return health(printerName, false, "error: " + e.getMessage());
+            }
+        }
+        PrintService printer = resolve(printerName);
+        return printer != null ? healthMonitor.probe(printer) : health(printerName, false, "not-found");
+    }
+
+    @Override
+    public boolean isAvailable(String printerName) {
+        return networkPrinters.addressOf(printerName) != null || printerRegistry.find(printerName) != null;
+    }
+
+    // 打印机组成员只打印到自己的设备，找不到时按打印机故障处理，由熔断器和路由换到组内其他成员；
+    // 其他打印机保持原来的行为，依次回退到默认打印机和第一台打印机
+    private PrintService resolve(String printerName) {
+        if (printerName != null && groupMembers.contains(printerName)) {
+            return printerRegistry.find(printerName);
+        }
+        return printerRegistry.resolve(printerName, configuredPrinterName);
+    }
+
+    @Override
+    public Capabilities getCapabilities(String printerName) {
+        return networkPrinters.addressOf(printerName) != null ? TCP : SPOOLER;
+    }
+
+    // 阻塞到数据全部写出，超时由客户端控制
+    private void sendRaw(String printerName, InetSocketAddress address, byte[] data) throws Exception {
+        try {
+            tcpClient.send(printerName, address, data).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * 把一个作业的事件转换为future：完成、失败、取消为终态；
+     * 不再有事件而没有收到完成事件时按完成处理，超时同样按完成处理，数据已被后台打印程序接收，重打会造成重复
+     */
+    private final class JobCompletionListener extends PrintJobAdapter {
+        private final String printerName;
+        private final CompletableFuture<Completion> future = new CompletableFuture<>();
+        private volatile ScheduledFuture<?> transferTimeout;
+
+        private JobCompletionListener(String printerName) {
+            this.printerName = printerName;
+        }
+
+        private void scheduleTimeout(DocPrintJob job) {
+            if (future.isDone()) {
+                return;
+            }
+            ScheduledFuture<?> timeout = scheduler.schedule(() -> {
+                if (future.complete(Completion.ASSUMED)) {
+                    log.warn("等待打印作业完成超时, 按已完成处理: {}", printerName);
+                }
+            }, completionTimeoutMillis, TimeUnit.MILLISECONDS);
+            future.whenComplete((completion, ex) -> {
+                timeout.cancel(false);
+                ScheduledFuture<?> afterTransfer = transferTimeout;
+                if (afterTransfer != null) {
+                    afterTransfer.cancel(false);
+                }
+                job.removePrintJobListener(this);
+            });
+        }
+
+        @Override
+        public void printDataTransferCompleted(PrintJobEvent event) {
+            log.debug("打印数据已传输到打印机: {}", printerName);
+            if (future.isDone()) {
+                return;
+            }
+            // 报告完成的驱动通常随后很快发出终态事件；不报告的驱动不必等到整体超时才释放打印机队列
+            transferTimeout = scheduler.schedule(() -> {
+                if (future.complete(Completion.ASSUMED)) {
+                    log.debug("打印数据已传输, 未报告作业结束, 按已完成处理: {}", printerName);
+                }
+            }, transferGraceMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void printJobCompleted(PrintJobEvent event) {
+            future.complete(Completion.CONFIRMED);
+        }
+
+        @Override
+        public void printJobFailed(PrintJobEvent event) {
+            future.completeExceptionally(new IOException("打印作业失败: " + printerName));
+        }
+
+        @Override
+        public void printJobCanceled(PrintJobEvent event) {
+            future.completeExceptionally(new IOException("打印作业被取消: " + printerName));
+        }
+
+        @Override
+        public void printJobNoMoreEvents(PrintJobEvent event) {
+            if (future.complete(Completion.ASSUMED)) {
+                log.debug("后台打印程序不再报告作业事件, 按已完成处理: {}", printerName);
+            }
+        }
+
+        @Override
+        public void printJobRequiresAttention(PrintJobEvent event) {
+            // 缺纸、卡纸等，处理后作业会继续，仍由超时兜底
+            log.warn("打印作业需要处理(缺纸、卡纸等): {}", printerName);
+        }
+    }
+
+    private static PrinterHealth health(String printerName, boolean ready, String state) {
+        return new PrinterHealth(printerName, ready, state, Collections.emptyList(), System.currentTimeMillis());
+    }
+}
@@ -18,8 +18,25 @@ public class PrintTask {
     private int retryCount;                // 重试次数
     private LocalDateTime createTime;      // 创建时间
     private String printerName;            // 打印机名称
+    private String printerGroup;           // 打印机组名称，发往组的任务由组内成员打印
     private PrintTaskPriority priority;     // 任务优先级
+    private PrintTaskType type;            // 任务类型，为空时按小票处理
+    private int copies;                    // 打印份数，渲染一次后重复写入同一个打印作业，小于1时按1份
+    private String idempotencyKey;         // 提交时的幂等键，任务最终失败或取消时据此撤销去重记录
 
+    /**
+     * 解析客户端传入的份数，无法识别时返回1
+     */
+    public static int parseCopies(Object value) {
+        if (value == null) {
+            return 1;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.toString().trim()));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
 }
 
 
@@ -1,13 +1,30 @@
 package org.example.print.bean;
 
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 
 /**
  * 任务优先级
+ * 退款单、骑手取货单等使用HIGH，可插队到普通任务之前
  */
 public enum PrintTaskPriority {
-    //暂时用不到
     HIGH,
     MEDIUM,
-    LOW
+    LOW;
+
+    /**
+     * 解析客户端传入的优先级，忽略大小写，无法识别时返回MEDIUM
+     */
+    @JsonCreator
+    public static PrintTaskPriority parse(Object value) {
+        if (value == null) {
+            return MEDIUM;
+        }
+        for (PrintTaskPriority priority : values()) {
+            if (priority.name().equalsIgnoreCase(value.toString().trim())) {
+                return priority;
+            }
+        }
+        return MEDIUM;
+    }
 }
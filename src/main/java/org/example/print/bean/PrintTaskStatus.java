@@ -7,7 +7,8 @@ public enum PrintTaskStatus {
     PENDING("待打印"),
     PRINTING("打印中"),
     FAILED("失败"),
-    COMPLETED("完成");
+    COMPLETED("完成"),
+    CANCELLED("已取消");
 
     private final String description;
 
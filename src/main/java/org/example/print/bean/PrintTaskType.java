@@ -0,0 +1,30 @@
+package org.example.print.bean;
+
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+/**
+ * 任务类型
+ * RECEIPT: content为订单JSON，按小票模板渲染
+ * PDF: content为Base64编码的PDF文件（发票、标签等），逐页光栅化后打印
+ */
+public enum PrintTaskType {
+    RECEIPT,
+    PDF;
+
+    /**
+     * 解析客户端传入的类型，忽略大小写，无法识别时返回RECEIPT
+     */
+    @JsonCreator
+    public static PrintTaskType parse(Object value) {
+        if (value == null) {
+            return RECEIPT;
+        }
+        for (PrintTaskType type : values()) {
+            if (type.name().equalsIgnoreCase(value.toString().trim())) {
+                return type;
+            }
+        }
+        return RECEIPT;
+    }
+}
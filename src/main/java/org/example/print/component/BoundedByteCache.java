@@ -0,0 +1,11 @@
+package org.example.print.component;
+
+/**
+ * 按总字节数限制的LRU字节缓存，见BoundedCache
+ */
+public class BoundedByteCache extends BoundedCache<byte[]> {
+
+    public BoundedByteCache(long capacityBytes) {
+        super(capacityBytes, bytes -> bytes.length);
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.print.component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * 按总字节数限制的LRU缓存，超出容量时淘汰最久未使用的项，记录命中、未命中和淘汰次数
+ * 每项的字节数由sizer计算，放入后不应再变化
+ */
+public class BoundedCache<V> {
+
+    private final long capacityBytes;
+    private final ToLongFunction<V> sizer;
+    private final LinkedHashMap<String, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public BoundedCache(long capacityBytes, ToLongFunction<V> sizer) {
+        this.capacityBytes = capacityBytes;
+        this.sizer = sizer;
+    }
+
+    public synchronized V get(String key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    /**
+     * 放入缓存，单项超过容量时不缓存
+     */
+    public synchronized void put(String key, V value) {
+        long size = sizer.applyAsLong(value);
+        if (size > capacityBytes) {
+            return;
+        }
+        V previous = entries.put(key, value);
+        sizeBytes += size - (previous == null ? 0 : sizer.applyAsLong(previous));
+        Iterator<V> it = entries.values().iterator();
+        while (sizeBytes > capacityBytes && it.hasNext()) {
+            sizeBytes -= sizer.applyAsLong(it.next());
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("entries", entries.size());
+        status.put("bytes", sizeBytes);
+        status.put("capacityBytes", capacityBytes);
+        status.put("hits", hits);
+        status.put("misses", misses);
+        status.put("evictions", evictions);
+        long lookups = hits + misses;
+        status.put("hitRate", lookups == 0 ? 0.0 : (double) hits / lookups);
+        return status;
+    }
+}
@@ -0,0 +1,229 @@
+package org.example.print.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.print.config.ImageProperties;
+import org.example.print.config.PrinterPaperProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 小票图片光栅化
+ * 商户logo、二维码等图片按目标打印机的宽度缩放，Floyd-Steinberg抖动为黑白位图，编码为GS v 0指令。
+ * 解码和抖动比渲染整张小票还慢，结果按 图片SHA-256 + 打印宽度 缓存，按字节数淘汰最久未用的项。
+ * 配置中的预置图片启动时读入内存，可选在启动时按配置的各种纸宽预先转换
+ */
+@Component
+@Slf4j
+public class ImageRasterizer {
+
+    // 解码前按图片头检查尺寸，拒绝解码后会占满堆内存的图片
+    private static final long MAX_PIXELS = 16L * 1024 * 1024;
+
+    // 图片哈希#宽度 -> 打印机字节
+    private final BoundedByteCache cache;
+    // 名称 -> 预置图片
+    private final Map<String, SourceImage> named = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ImageRasterizer(ImageProperties properties, PrinterPaperProperties paperProperties,
+                           ResourceLoader resourceLoader) {
+        this(properties.getCacheSize() * 1024 * 1024);
+        Set<Integer> widths = new TreeSet<>(paperProperties.getPrinters().values());
+        widths.add(paperProperties.getDotsPerLine());
+        properties.getImages().forEach((name, location) -> {
+            try {
+                register(name, load(resourceLoader.getResource(location)));
+                if (properties.isWarmUp()) {
+                    for (int width : widths) {
+                        raster(name, null, width);
+                    }
+                }
+                log.info("预置图片已加载: {} {}", name, location);
+            } catch (Exception e) {
+                // 图片有误不影响启动，引用该图片的小票渲染时报错
+                log.error("加载预置图片失败: {} {}", name, location, e);
+            }
+        });
+    }
+
+    public ImageRasterizer(long cacheBytes) {
+        this.cache = new BoundedByteCache(cacheBytes);
+    }
+
+    /**
+     * 注册预置图片
+     */
+    public void register(String name, byte[] image) {
+        named.put(name, new SourceImage(image));
+    }
+
+    /**
+     * 模板中图片块的打印机字节
+     * value为预置图片名称或Base64编码的图片（可带data:image/...;base64,前缀）；
+     * value为空时打印与块同名的预置图片，也没有时返回null；图片比dotsPerLine宽时等比缩小
+     *
+     * @throws IllegalArgumentException 图片无法解码
+     */
+    public byte[] raster(String name, String value, int dotsPerLine) {
+        SourceImage image;
+        if (value == null || value.isEmpty()) {
+            image = named.get(name);
+            if (image == null) {
+                return null;
+            }
+        } else {
+            image = named.get(value);
+            if (image == null) {
+                image = new SourceImage(decodeBase64(value));
+            }
+        }
+        return raster(image, dotsPerLine);
+    }
+
+    /**
+     * 按指定宽度光栅化，图片比宽度窄时保持原尺寸
+     */
+    public byte[] raster(byte[] image, int width) {
+        return raster(new SourceImage(image), width);
+    }
+
+    public Map<String, Object> getCacheStatus() {
+        return cache.status();
+    }
+
+    private byte[] raster(SourceImage image, int width) {
+        String key = image.hash + '#' + width;
+        byte[] bytes = cache.get(key);
+        if (bytes == null) {
+            long start = System.nanoTime();
+            bytes = PdfRenderer.encode(dither(decode(image.data), width));
+            cache.put(key, bytes);
+            log.debug("图片光栅化完成: {}, 字节数: {}, 耗时: {}us", key, bytes.length, (System.nanoTime() - start) / 1000);
+        }
+        return bytes;
+    }
+
+    private static byte[] decodeBase64(String value) {
+        int comma = value.startsWith("data:") ? value.indexOf(',') : -1;
+        try {
+            return Base64.getMimeDecoder().decode(value.substring(comma + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("图片既不是预置图片名称也不是有效的Base64数据");
+        }
+    }
+
+    private static BufferedImage decode(byte[] data) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("无法识别的图片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > MAX_PIXELS) {
+                    throw new IllegalArgumentException("图片尺寸过大: " + reader.getWidth(0) + "x" + reader.getHeight(0));
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("图片解码失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 缩放到不超过maxWidth后用Floyd-Steinberg误差扩散转为黑白位图
+     * 透明部分按白色处理；返回TYPE_BYTE_BINARY图片，1表示白色，与PDF渲染结果一致
+     */
+    static BufferedImage dither(BufferedImage source, int maxWidth) {
+        int width = Math.min(source.getWidth(), maxWidth);
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+
+        BufferedImage rgb = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        int[] pixels = rgb.getRGB(0, 0, width, height, null, 0, width);
+
+        BufferedImage binary = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        MultiPixelPackedSampleModel model = (MultiPixelPackedSampleModel) binary.getRaster().getSampleModel();
+        DataBufferByte buffer = (DataBufferByte) binary.getRaster().getDataBuffer();
+        byte[] data = buffer.getData();
+
+        // 当前行和下一行的累积误差，两端各留一格免去边界判断
+        int[] current = new int[width + 2];
+        int[] next = new int[width + 2];
+        for (int y = 0; y < height; y++) {
+            int offset = buffer.getOffset() + model.getOffset(0, y);
+            for (int x = 0; x < width; x++) {
+                int p = pixels[y * width + x];
+                int luma = (((p >> 16) & 0xFF) * 299 + ((p >> 8) & 0xFF) * 587 + (p & 0xFF) * 114) / 1000;
+                int value = luma + current[x + 1] / 16;
+                int error;
+                if (value >= 128) {
+                    data[offset + (x >> 3)] |= 0x80 >> (x & 7);
+                    error = value - 255;
+                } else {
+                    error = value;
+                }
+                current[x + 2] += error * 7;
+                next[x] += error * 3;
+                next[x + 1] += error * 5;
+                next[x + 2] += error;
+            }
+            int[] swap = current;
+            current = next;
+            next = swap;
+            Arrays.fill(next, 0);
+        }
+        return binary;
+    }
+
+    private static byte[] load(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+
+    private static final class SourceImage {
+        private final String hash;
+        private final byte[] data;
+
+        private SourceImage(byte[] data) {
+            this.hash = PdfRenderer.sha256(data);
+            this.data = data;
+        }
+    }
+}
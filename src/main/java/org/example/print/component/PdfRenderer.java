@@ -0,0 +1,239 @@
+package org.example.print.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.Raster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * PDF渲染
+ * 按目标打印机的每行点数缩放页面，用PDFBox光栅化为黑白位图，编码为ESC/POS位图指令(GS v 0)。
+ * 缺页分组后在pdfRenderExecutor上并行渲染：PDDocument不是线程安全的，每组各自加载一份文档。
+ * 渲染结果按 文档SHA-256 + 每行点数 + 页码 缓存，重打和重试不再渲染；缓存按字节数淘汰最久未用的页。
+ * 内存上界：每份文档解析时最多占用max-main-memory堆内存（超出部分放临时文件），
+ * 每个渲染线程同一时间只持有一页位图，页数超过max-pages的文档直接拒绝
+ */
+@Component
+@Slf4j
+public class PdfRenderer {
+
+    // 每条GS v 0指令最多包含的行数，过高的位图会超出部分打印机的接收缓冲区
+    private static final int BAND_HEIGHT = 256;
+    private static final int MAX_PAGE_COUNTS = 1024;
+
+    private final Executor executor;
+    private final int parallelism;
+    private final int maxPages;
+    private final long maxMainMemoryBytes;
+    // 文档哈希#每行点数#页码 -> 该页的打印机字节
+    private final BoundedByteCache cache;
+    // 文档哈希 -> 页数，最多记录MAX_PAGE_COUNTS个文档
+    private final Map<String, Integer> pageCounts = new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > MAX_PAGE_COUNTS;
+        }
+    };
+
+    @Autowired
+    public PdfRenderer(
+            @Qualifier("pdfRenderExecutor") Executor executor,
+            @Value("${print.pdf.max-pages:50}") int maxPages,
+            @Value("${print.pdf.cache-size:32}") long cacheMegabytes,
+            @Value("${print.pdf.max-main-memory:16}") long maxMainMemoryMegabytes) {
+        this(executor, Runtime.getRuntime().availableProcessors(), maxPages,
+                cacheMegabytes * 1024 * 1024, maxMainMemoryMegabytes * 1024 * 1024);
+    }
+
+    public PdfRenderer(Executor executor, int parallelism, int maxPages, long cacheBytes, long maxMainMemoryBytes) {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxPages = maxPages;
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+        this.cache = new BoundedByteCache(cacheBytes);
+    }
+
+    /**
+     * 渲染整份文档为打印机字节，各页依次排列，页面宽度缩放到dotsPerLine
+     */
+    public byte[] render(byte[] pdf, int dotsPerLine) throws IOException {
+        String hash = sha256(pdf);
+        int pages = pageCount(hash, pdf);
+
+        Map<Integer, byte[]> rendered = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int page = 0; page < pages; page++) {
+            byte[] cached = cache.get(keyOf(hash, dotsPerLine, page));
+            if (cached != null) {
+                rendered.put(page, cached);
+            } else {
+                missing.add(page);
+            }
+        }
+        if (!missing.isEmpty()) {
+            rendered.putAll(renderPages(pdf, hash, dotsPerLine, missing));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int page = 0; page < pages; page++) {
+            out.write(rendered.get(page));
+        }
+        log.info("PDF渲染完成: 页数: {}, 每行点数: {}, 新渲染: {}, 字节数: {}",
+                pages, dotsPerLine, missing.size(), out.size());
+        return out.toByteArray();
+    }
+
+    public Map<String, Object> getCacheStatus() {
+        return cache.status();
+    }
+
+    private int pageCount(String hash, byte[] pdf) throws IOException {
+        Integer pages;
+        synchronized (pageCounts) {
+            pages = pageCounts.get(hash);
+        }
+        if (pages == null) {
+            try (PDDocument document = load(pdf)) {
+                pages = document.getNumberOfPages();
+            }
+            synchronized (pageCounts) {
+                pageCounts.put(hash, pages);
+            }
+        }
+        if (pages > maxPages) {
+            throw new IOException("PDF页数" + pages + "超过上限" + maxPages);
+        }
+        return pages;
+    }
+
+    // 缺页交错分组，每组一个线程，各组页数相差不超过一页
+    private Map<Integer, byte[]> renderPages(byte[] pdf, String hash, int dotsPerLine, List<Integer> missing)
+            throws IOException {
+        int groups = Math.min(parallelism, missing.size());
+        List<CompletableFuture<Map<Integer, byte[]>>> futures = new ArrayList<>(groups);
+        for (int g = 0; g < groups; g++) {
+            List<Integer> group = new ArrayList<>();
+            for (int i = g; i < missing.size(); i += groups) {
+                group.add(missing.get(i));
+            }
+            futures.add(CompletableFuture.supplyAsync(() -> renderGroup(pdf, hash, dotsPerLine, group), executor));
+        }
+        Map<Integer, byte[]> rendered = new HashMap<>();
+        try {
+            for (CompletableFuture<Map<Integer, byte[]>> future : futures) {
+                rendered.putAll(future.join());
+            }
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException("PDF渲染失败", cause);
+        }
+        return rendered;
+    }
+
+    private Map<Integer, byte[]> renderGroup(byte[] pdf, String hash, int dotsPerLine, List<Integer> pages) {
+        Map<Integer, byte[]> rendered = new HashMap<>();
+        try (PDDocument document = load(pdf)) {
+            PDFRenderer renderer = new PDFRenderer(document);
+            for (int page : pages) {
+                float scale = scaleOf(document.getPage(page), dotsPerLine);
+                byte[] bytes = encode(renderer.renderImage(page, scale, ImageType.BINARY));
+                cache.put(keyOf(hash, dotsPerLine, page), bytes);
+                rendered.put(page, bytes);
+            }
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+        return rendered;
+    }
+
+    private PDDocument load(byte[] pdf) throws IOException {
+        return PDDocument.load(pdf, "", null, null, MemoryUsageSetting.setupMixed(maxMainMemoryBytes));
+    }
+
+    // 页面宽度缩放到打印机一行的点数，横向页面按旋转后的宽度计算
+    private static float scaleOf(PDPage page, int dotsPerLine) {
+        PDRectangle box = page.getCropBox();
+        boolean rotated = page.getRotation() % 180 != 0;
+        float width = rotated ? box.getHeight() : box.getWidth();
+        return dotsPerLine / width;
+    }
+
+    // 同一文档在不同宽度的打印机上渲染结果不同
+    private static String keyOf(String hash, int dotsPerLine, int page) {
+        return hash + '#' + dotsPerLine + '#' + page;
+    }
+
+    /**
+     * 黑白位图编码为GS v 0指令，按BAND_HEIGHT行分段
+     * TYPE_BYTE_BINARY每行按字节对齐、1表示白色，ESC/POS中1表示打印，需要取反
+     */
+    static byte[] encode(BufferedImage image) {
+        Raster raster = image.getRaster();
+        MultiPixelPackedSampleModel model = (MultiPixelPackedSampleModel) raster.getSampleModel();
+        DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+        byte[] data = buffer.getData();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int rowBytes = (width + 7) / 8;
+        // 每行最后一个字节中超出宽度的位不打印
+        int tailMask = width % 8 == 0 ? 0xFF : (0xFF << (8 - width % 8)) & 0xFF;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(height * rowBytes + (height / BAND_HEIGHT + 1) * 8);
+        for (int top = 0; top < height; top += BAND_HEIGHT) {
+            int rows = Math.min(BAND_HEIGHT, height - top);
+            out.write(0x1D);
+            out.write('v');
+            out.write('0');
+            out.write(0);
+            out.write(rowBytes & 0xFF);
+            out.write(rowBytes >> 8);
+            out.write(rows & 0xFF);
+            out.write(rows >> 8);
+            for (int y = top; y < top + rows; y++) {
+                int offset = buffer.getOffset() + model.getOffset(0, y);
+                for (int x = 0; x < rowBytes; x++) {
+                    int value = ~data[offset + x] & 0xFF;
+                    out.write(x == rowBytes - 1 ? value & tailMask : value);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
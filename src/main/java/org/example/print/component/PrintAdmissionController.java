@@ -0,0 +1,108 @@
+package org.example.print.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.print.service.PrintTaskNotificationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 打印任务准入控制
+ * 按打印机队列深度设置高低水位：达到高水位后拒绝新任务，回落到低水位后恢复接收，
+ * 水位变化推送到/topic/print-status，让上游提前退避，而不是阻塞调用线程
+ */
+@Component
+@Slf4j
+public class PrintAdmissionController {
+
+    private final PrintQueue printQueue;
+    private final PrintTaskNotificationService notificationService;
+    // 当前处于高水位（拒绝新任务）的打印机
+    private final Set<String> busyPrinters = ConcurrentHashMap.newKeySet();
+
+    @Value("${print.admission.high-watermark:800}")
+    private int highWatermark;
+
+    @Value("${print.admission.low-watermark:600}")
+    private int lowWatermark;
+
+    @Value("${print.admission.retry-after:5}")
+    private int retryAfterSeconds;
+
+    @Autowired
+    public PrintAdmissionController(PrintQueue printQueue, PrintTaskNotificationService notificationService) {
+        this.printQueue = printQueue;
+        this.notificationService = notificationService;
+    }
+
+    /**
+     * 判断指定打印机是否还能接收新任务
+     */
+    public boolean tryAdmit(String printerName) {
+        String key = printQueue.resolvePrinterName(printerName);
+        int depth = printQueue.size(key);
+        if (busyPrinters.contains(key)) {
+            if (depth > lowWatermark) {
+                return false;
+            }
+            if (busyPrinters.remove(key)) {
+                publishWatermark(key, "LOW", depth);
+            }
+            return true;
+        }
+        if (depth >= highWatermark) {
+            if (busyPrinters.add(key)) {
+                log.warn("打印机队列达到高水位, 暂停接收新任务: {}, 队列深度: {}", key, depth);
+                publishWatermark(key, "HIGH", depth);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // 建议客户端重试的等待秒数
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public Set<String> getBusyPrinters() {
+        return busyPrinters;
+    }
+
+    /**
+     * 没有新任务提交时也要及时发现队列已回落到低水位
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void refreshWatermarks() {
+        for (String printerName : busyPrinters) {
+            int depth = printQueue.size(printerName);
+            if (depth <= lowWatermark && busyPrinters.remove(printerName)) {
+                log.info("打印机队列回落到低水位, 恢复接收新任务: {}, 队列深度: {}", printerName, depth);
+                publishWatermark(printerName, "LOW", depth);
+            }
+        }
+    }
+
+    private void publishWatermark(String printerName, String watermark, int depth) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "watermark");
+        event.put("printerName", printerName);
+        event.put("watermark", watermark);
+        event.put("accepting", "LOW".equals(watermark));
+        event.put("queueSize", depth);
+        event.put("retryAfter", retryAfterSeconds);
+        event.put("timestamp", LocalDateTime.now().toString());
+        try {
+            notificationService.sendWebSocketMessage("/topic/print-status", event);
+        } catch (Exception e) {
+            log.error("推送水位事件失败: {}", printerName, e);
+        }
+    }
+}
@@ -2,16 +2,27 @@ package org.example.print.component;
 
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * 打印任务统计
+ * 成功数只在作业真正结束后计入；另按打印机记录从提交作业到作业结束(spool-to-done)的耗时分布
  */
 @Component
 public class PrintMetrics {
     private final AtomicLong totalTasks = new AtomicLong(0);
     private final AtomicLong successTasks = new AtomicLong(0);
     private final AtomicLong failedTasks = new AtomicLong(0);
+    // 各打印机因限速等待的累计时间(纳秒)
+    private final Map<String, AtomicLong> throttledNanos = new ConcurrentHashMap<>();
+    // 各打印机spool-to-done耗时分布
+    private final Map<String, LatencyHistogram> spoolToDone = new ConcurrentHashMap<>();
 
     public void recordSuccess() {
         totalTasks.incrementAndGet();
@@ -27,4 +38,97 @@ public class PrintMetrics {
         long total = totalTasks.get();
         return total == 0 ? 0 : (double) successTasks.get() / total;
     }
+
+    public void recordThrottled(String printerName, long nanos) {
+        throttledNanos.computeIfAbsent(printerName, k -> new AtomicLong()).addAndGet(nanos);
+    }
+
+    // 各打印机因限速等待的累计毫秒数
+    public Map<String, Long> getThrottledMillisByPrinter() {
+        Map<String, Long> result = new TreeMap<>();
+        throttledNanos.forEach((printerName, nanos) ->
+                result.put(printerName, TimeUnit.NANOSECONDS.toMillis(nanos.get())));
+        return result;
+    }
+
+    /**
+     * 记录一个作业从提交到结束的耗时
+     *
+     * @param confirmed 打印机是否报告了完成，false表示按超时或不再有事件推定完成
+     */
+    public void recordSpoolToDone(String printerName, long nanos, boolean confirmed) {
+        spoolToDone.computeIfAbsent(printerName, k -> new LatencyHistogram())
+                .record(TimeUnit.NANOSECONDS.toMillis(nanos), confirmed);
+    }
+
+    public Map<String, Map<String, Object>> getSpoolToDoneByPrinter() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        spoolToDone.forEach((printerName, histogram) -> result.put(printerName, histogram.snapshot()));
+        return result;
+    }
+
+    /**
+     * 固定桶的耗时直方图，百分位取所在桶的上界
+     */
+    static final class LatencyHistogram {
+        // 各桶上界(毫秒)，最后一个桶收集其余
+        private static final long[] BOUNDS = {50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000};
+
+        private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sumMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+        private final AtomicLong confirmed = new AtomicLong();
+
+        void record(long millis, boolean confirmedByPrinter) {
+            int bucket = 0;
+            while (bucket < BOUNDS.length && millis > BOUNDS[bucket]) {
+                bucket++;
+            }
+            counts.incrementAndGet(bucket);
+            count.incrementAndGet();
+            sumMillis.addAndGet(millis);
+            maxMillis.accumulateAndGet(millis, Math::max);
+            if (confirmedByPrinter) {
+                confirmed.incrementAndGet();
+            }
+        }
+
+        // 第p百分位所在桶的上界，落在最后一个桶时返回最大值
+        long percentile(double p) {
+            long total = count.get();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * p);
+            long seen = 0;
+            for (int i = 0; i < BOUNDS.length; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return BOUNDS[i];
+                }
+            }
+            return maxMillis.get();
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            long total = count.get();
+            result.put("count", total);
+            result.put("confirmed", confirmed.get());
+            result.put("assumed", total - confirmed.get());
+            result.put("meanMillis", total == 0 ? 0 : sumMillis.get() / total);
+            result.put("p50Millis", percentile(0.5));
+            result.put("p90Millis", percentile(0.9));
+            result.put("p99Millis", percentile(0.99));
+            result.put("maxMillis", maxMillis.get());
+            Map<String, Long> buckets = new LinkedHashMap<>();
+            for (int i = 0; i < BOUNDS.length; i++) {
+                buckets.put("<=" + BOUNDS[i], counts.get(i));
+            }
+            buckets.put(">" + BOUNDS[BOUNDS.length - 1], counts.get(BOUNDS.length));
+            result.put("buckets", buckets);
+            return result;
+        }
+    }
 }
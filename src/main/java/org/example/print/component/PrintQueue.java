@@ -2,38 +2,188 @@ package org.example.print.component;
 
 
 import org.example.print.bean.PrintTask;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * 打印队列
+ * 按打印机分片，每台打印机一个独立队列，互不阻塞
+ * 队列实现由print.queue.type选择，默认按优先级出队，并通过老化避免低优先级任务饿死
  */
 @Component
 public class PrintQueue {
-    private final BlockingQueue<PrintTask> queue = new LinkedBlockingQueue<>(
-            1000
-    );
+    private static final List<String> QUEUE_TYPES = Arrays.asList("priority", "fifo", "ring");
+
+    // 打印机名称 -> 该打印机的任务队列
+    private final ConcurrentHashMap<String, BlockingQueue<PrintTask>> lanes = new ConcurrentHashMap<>();
+    // 新打印机队列创建时的回调
+    private final List<Consumer<String>> laneListeners = new CopyOnWriteArrayList<>();
+
+    private final String defaultPrinterName;
+    private final int capacity;
+    private final long agingInterval;
+    private final String queueType;
+    private final RingBufferTaskQueue.WaitStrategy waitStrategy;
+
+    @Autowired
+    public PrintQueue(
+            @Value("${print.printer-name:}") String defaultPrinterName,
+            @Value("${print.queue.capacity:1000}") int capacity,
+            @Value("${print.queue.aging-interval:5000}") long agingInterval,
+            @Value("${print.queue.type:priority}") String queueType,
+            @Value("${print.queue.wait-strategy:blocking}") String waitStrategy,
+            @Value("${print.queue.allow-busy-spin:false}") boolean allowBusySpin) {
+        this.defaultPrinterName = defaultPrinterName;
+        this.capacity = capacity;
+        this.agingInterval = agingInterval;
+        this.queueType = queueType;
+        this.waitStrategy = RingBufferTaskQueue.WaitStrategy.parse(waitStrategy, allowBusySpin);
+        if (!QUEUE_TYPES.contains(queueType)) {
+            throw new IllegalArgumentException("未知的打印队列类型: " + queueType);
+        }
+    }
+
+    public PrintQueue(String defaultPrinterName, int capacity, long agingInterval,
+                      String queueType, String waitStrategy) {
+        this(defaultPrinterName, capacity, agingInterval, queueType, waitStrategy, false);
+    }
+
+    public PrintQueue(String defaultPrinterName, int capacity, long agingInterval) {
+        this(defaultPrinterName, capacity, agingInterval, "priority", "blocking");
+    }
+
+    public boolean offer(PrintTask task) {
+        return lane(task.getPrinterName()).offer(task);
+    }
 
     public boolean offer(PrintTask task, long timeout, TimeUnit unit) throws InterruptedException {
-        return queue.offer(task, timeout, unit);
+        return lane(task.getPrinterName()).offer(task, timeout, unit);
     }
 
+    // 从任意一个非空的打印机队列中取出任务，跳过已取消的任务
     public PrintTask poll() {
-        return queue.poll();
+        for (BlockingQueue<PrintTask> lane : lanes.values()) {
+            PrintTask task;
+            while ((task = lane.poll()) != null) {
+                if (!PrintTaskIndex.isCancelled(task)) {
+                    return task;
+                }
+            }
+        }
+        return null;
+    }
+
+    // 阻塞等待指定打印机的下一个任务，跳过已取消的任务
+    public PrintTask take(String printerName) throws InterruptedException {
+        BlockingQueue<PrintTask> lane = lane(printerName);
+        PrintTask task;
+        do {
+            task = lane.take();
+        } while (PrintTaskIndex.isCancelled(task));
+        return task;
+    }
+
+    // 在超时时间内等待指定打印机的下一个任务，跳过已取消的任务
+    public PrintTask poll(String printerName, long timeout, TimeUnit unit) throws InterruptedException {
+        BlockingQueue<PrintTask> lane = lane(printerName);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        PrintTask task;
+        do {
+            task = lane.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } while (task != null && PrintTaskIndex.isCancelled(task));
+        return task;
     }
 
     public boolean isEmpty() {
-        return queue.isEmpty();
+        return size() == 0;
     }
 
     public void put(PrintTask task) throws InterruptedException {
-        queue.put(task);
+        lane(task.getPrinterName()).put(task);
     }
 
     public int size() {
-        return queue.size();
+        int size = 0;
+        for (BlockingQueue<PrintTask> lane : lanes.values()) {
+            size += lane.size();
+        }
+        return size;
+    }
+
+    public int size(String printerName) {
+        BlockingQueue<PrintTask> lane = lanes.get(resolvePrinterName(printerName));
+        return lane == null ? 0 : lane.size();
+    }
+
+    // 各打印机队列深度
+    public Map<String, Integer> sizeByPrinter() {
+        Map<String, Integer> sizes = new TreeMap<>();
+        lanes.forEach((printerName, lane) -> sizes.put(printerName, lane.size()));
+        return sizes;
+    }
+
+    public Set<String> printerNames() {
+        return lanes.keySet();
+    }
+
+    /**
+     * 注册新打印机队列的监听器，已存在的队列会立即回调一次
+     */
+    public void addLaneListener(Consumer<String> listener) {
+        laneListeners.add(listener);
+        lanes.keySet().forEach(listener);
+    }
+
+    // 未指定打印机的任务归入默认打印机队列
+    public String resolvePrinterName(String printerName) {
+        if (printerName == null || printerName.trim().isEmpty()) {
+            return defaultPrinterName;
+        }
+        return printerName;
+    }
+
+    /**
+     * 按配置创建单台打印机的队列
+     * priority: 优先级+老化（默认）；fifo: LinkedBlockingQueue；ring: 无锁环形缓冲，不支持优先级
+     */
+    private BlockingQueue<PrintTask> createLane() {
+        switch (queueType) {
+            case "fifo":
+                return new LinkedBlockingQueue<>(capacity);
+            case "ring":
+                return new RingBufferTaskQueue(capacity, waitStrategy);
+            case "priority":
+                return new PriorityAgingTaskQueue(capacity, agingInterval, TimeUnit.MILLISECONDS);
+            default:
+                throw new IllegalArgumentException("未知的打印队列类型: " + queueType);
+        }
+    }
+
+    private BlockingQueue<PrintTask> lane(String printerName) {
+        String key = resolvePrinterName(printerName);
+        BlockingQueue<PrintTask> lane = lanes.get(key);
+        if (lane != null) {
+            return lane;
+        }
+        BlockingQueue<PrintTask> created = createLane();
+        lane = lanes.putIfAbsent(key, created);
+        if (lane == null) {
+            laneListeners.forEach(listener -> listener.accept(key));
+            return created;
+        }
+        return lane;
     }
-}
\ No newline at end of file
+}
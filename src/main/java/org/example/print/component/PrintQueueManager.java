@@ -6,17 +6,15 @@ import org.example.print.bean.PrintTaskStatus;
 import org.example.print.service.PrintTaskNotificationService;
 import org.example.print.service.UnifiedPrintService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -28,109 +26,288 @@ public class PrintQueueManager {
 
     private final PrintQueue printQueue;
     private final UnifiedPrintService printService;
-    private final Executor taskExecutor;
     private final PrintTaskPersistence printTaskPersistence;
     private final PrintMetrics printMetrics;
     private final PrintTaskNotificationService notificationService;
+    private final PrintRetryScheduler retryScheduler;
+    private final PrintAdmissionController admissionController;
+    private final PrintTaskIndex taskIndex;
+    private final PrintTaskDeduplicator deduplicator;
+    private final PrinterRouter printerRouter;
+    private final PrinterCircuitBreaker circuitBreaker;
 
     @Value("${print.max-retry:3}")
     private int maxRetry;
 
-    @Value("${print.queue.offer-timeout:3}")
-    private int offerTimeout;
+    @Value("${print.retry.base-delay:1000}")
+    private long retryBaseDelay;
+
+    @Value("${print.retry.max-jitter:1000}")
+    private long retryMaxJitter;
 
     @Autowired
     public PrintQueueManager(
             PrintQueue printQueue,
             UnifiedPrintService printService,
-            @Qualifier("printTaskExecutor") Executor taskExecutor,
             PrintTaskPersistence printTaskPersistence,
             PrintMetrics printMetrics,
-            PrintTaskNotificationService notificationService) {
+            PrintTaskNotificationService notificationService,
+            PrintRetryScheduler retryScheduler,
+            PrintAdmissionController admissionController,
+            PrintTaskIndex taskIndex,
+            PrintTaskDeduplicator deduplicator,
+            PrinterRouter printerRouter,
+            PrinterCircuitBreaker circuitBreaker) {
         this.printQueue = printQueue;
         this.printService = printService;
-        this.taskExecutor = taskExecutor;
         this.printTaskPersistence = printTaskPersistence;
         this.printMetrics = printMetrics;
         this.notificationService = notificationService;
+        this.retryScheduler = retryScheduler;
+        this.admissionController = admissionController;
+        this.taskIndex = taskIndex;
+        this.deduplicator = deduplicator;
+        this.printerRouter = printerRouter;
+        this.circuitBreaker = circuitBreaker;
     }
 
     // 添加打印任务
-    public void addPrintTask(PrintTask task) {
+    public boolean addPrintTask(PrintTask task) {
+        return addPrintTask(task, null);
+    }
+
+    /**
+     * 添加打印任务
+     *
+     * @param idempotencyKey 客户端提供的幂等键，可为空
+     * @return false 表示去重窗口内的重复任务，已忽略
+     */
+    public boolean addPrintTask(PrintTask task, String idempotencyKey) {
         task.setStatus(PrintTaskStatus.PENDING);
         if (task.getCreateTime() == null) {
             task.setCreateTime(LocalDateTime.now());
         }
 
-        try {
-            // 先持久化任务
-            printTaskPersistence.savePendingTask(task);
+        task.setIdempotencyKey(idempotencyKey);
 
-            // 使用带超时的offer，给一个短暂的等待时间
-            boolean added = printQueue.offer(task, offerTimeout, TimeUnit.SECONDS);
-            if (!added) {
-                log.error("队列已满，无法添加任务: {}, 当前队列大小: {}",
-                        task.getTaskId(), getQueueSize());
+        // 按taskId、内容哈希和幂等键去重
+        if (!deduplicator.checkAndRecord(task, idempotencyKey)) {
+            return false;
+        }
 
-                task.setStatus(PrintTaskStatus.FAILED);
+        enqueue(task, () -> deduplicator.forget(task, idempotencyKey));
+        return true;
+    }
 
-                // 通知客户端任务添加失败
-                notificationService.notifyClient(task);
+    /**
+     * 重打已完成的任务
+     * 从已完成任务索引中按taskId取出任务，以原taskId和内容重新入队，不经过去重；
+     * 渲染结果缓存仍有效时不再渲染
+     *
+     * @param printerName 改发到其他打印机，为空时使用原打印机
+     * @return 重新入队的任务，任务不存在时返回null
+     * @throws IllegalStateException 任务仍在队列中或正在打印
+     */
+    public PrintTask reprintTask(String taskId, String printerName) {
+        if (taskIndex.get(taskId) != null) {
+            throw new IllegalStateException("任务尚未结束，无法重打: " + taskId);
+        }
+        PrintTask completed = printTaskPersistence.findCompletedTask(taskId);
+        if (completed == null) {
+            return null;
+        }
+        PrintTask task = PrintTask.builder()
+                .taskId(completed.getTaskId())
+                .content(completed.getContent())
+                .type(completed.getType())
+                .copies(completed.getCopies())
+                .priority(completed.getPriority())
+                .printerName(printerName != null && !printerName.trim().isEmpty()
+                        ? printerName : completed.getPrinterName())
+                .printerGroup(printerName != null && !printerName.trim().isEmpty()
+                        ? null : completed.getPrinterGroup())
+                .status(PrintTaskStatus.PENDING)
+                .createTime(LocalDateTime.now())
+                .retryCount(0)
+                .build();
+        log.info("重打任务: {}, 打印机: {}", taskId, task.getPrinterName());
+        enqueue(task, () -> { });
+        return task;
+    }
 
-                // 通知远程服务器任务添加失败
-                notificationService.notifyRemoteServer(task.getTaskId(), PrintTaskStatus.FAILED);
+    // 路由、准入、持久化并入队；未能入队时执行rollback并抛出PrintQueueFullException
+    private void enqueue(PrintTask task, Runnable rollback) {
+        // 发往打印机组的任务选定成员，之后的准入和入队都按成员打印机进行；组内没有存在的成员时拒绝
+        if (!printerRouter.route(task)) {
+            rollback.run();
+            throw new PrintTaskException("打印机组没有可用的打印机: " + task.getPrinterGroup());
+        }
 
-                throw new PrintQueueFullException("打印队列已满，请稍后重试");
-            }
-            log.info("成功添加打印任务到队列: {}", task.getTaskId());
+        // 准入检查，超过高水位时立即拒绝，不阻塞调用线程
+        if (!admissionController.tryAdmit(task.getPrinterName())) {
+            log.warn("打印队列繁忙，拒绝任务: {}, 打印机: {}", task.getTaskId(), task.getPrinterName());
+            rollback.run();
+            throw new PrintQueueFullException("打印队列繁忙，请稍后重试",
+                    admissionController.getRetryAfterSeconds());
+        }
 
-            // 通知客户端和远程服务器任务状态
-            notificationService.notifyAll(task);
+        // 先持久化任务
+        printTaskPersistence.savePendingTask(task);
+
+        // 先登记索引，入队后即可被取消
+        taskIndex.register(task);
+        boolean added = printQueue.offer(task);
+        if (!added) {
+            taskIndex.remove(task);
+            rollback.run();
+            log.error("队列已满，无法添加任务: {}, 当前队列大小: {}",
+                    task.getTaskId(), getQueueSize());
+
+            task.setStatus(PrintTaskStatus.FAILED);
+
+            // 通知客户端任务添加失败
+            notificationService.notifyClient(task);
+
+            // 通知远程服务器任务添加失败
+            notificationService.notifyRemoteServer(task.getTaskId(), PrintTaskStatus.FAILED);
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new PrintTaskException("添加打印任务被中断", e);
+            throw new PrintQueueFullException("打印队列已满，请稍后重试",
+                    admissionController.getRetryAfterSeconds());
         }
-    }
+        log.info("成功添加打印任务到队列: {}", task.getTaskId());
 
+        // 通知客户端和远程服务器任务状态
+        notificationService.notifyAll(task);
+    }
 
-    // 定时处理打印任务
-    @Scheduled(fixedRate = 1000)
-    public void processPrintTasks() {
-        // 从队列中取出任务
-        PrintTask task = printQueue.poll();
-        if (task != null) {
-            taskExecutor.execute(() -> {
-                try {
-                    task.setStatus(PrintTaskStatus.PRINTING);
 
-                    // 通知客户端和远程服务器任务状态
-                    notificationService.notifyAll(task);
+    // 处理同一打印机的一批打印任务，由PrintTaskDispatcher在printTaskExecutor线程中调用
+    // 整批合并为一个打印作业，每个任务仍单独更新状态和通知；返回的future在结果处理完毕后完成
+    public CompletableFuture<Void> processBatch(List<PrintTask> tasks) {
+        // 已取消的任务直接跳过，占用后不能再被取消
+        List<PrintTask> claimed = new ArrayList<>(tasks.size());
+        for (PrintTask task : tasks) {
+            if (taskIndex.claim(task)) {
+                claimed.add(task);
+            } else {
+                log.info("打印任务已取消, 跳过: {}", task.getTaskId());
+            }
+        }
+        if (claimed.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
 
-                    // 使用CompletableFuture异步处理打印结果
-                    CompletableFuture<UnifiedPrintService.PrintResult> future =
-                            printService.executePrint(task);
+        CompletableFuture<Void> processed;
+        try {
+            for (PrintTask task : claimed) {
+                task.setStatus(PrintTaskStatus.PRINTING);
 
-                    future.thenAccept(result -> {
-                        if (result.isSuccess()) {
-                            task.setStatus(PrintTaskStatus.COMPLETED);
-                            log.info("打印任务完成: {}", task.getTaskId());
+                // 通知客户端和远程服务器任务状态
+                notificationService.notifyAll(task);
+            }
 
-                            // 通知客户端和远程服务器任务状态
-                            notificationService.notifyAll(task);
+            // 使用CompletableFuture异步处理打印结果
+            long startNanos = System.nanoTime();
+            CompletableFuture<List<UnifiedPrintService.PrintResult>> future =
+                    printService.executeBatch(claimed);
+
+            processed = future.thenAccept(results -> {
+                // 整批是同一个打印作业，熔断器按作业记录一次结果，不按任务数累计失败
+                String printerName = printQueue.resolvePrinterName(claimed.get(0).getPrinterName());
+                boolean printed = false;
+                boolean printerFault = false;
+                for (UnifiedPrintService.PrintResult result : results) {
+                    printed |= result.isSuccess();
+                    printerFault |= result.isPrinterFault();
+                }
+                boolean open = false;
+                if (printerFault) {
+                    open = circuitBreaker.recordFailure(printerName) == PrinterCircuitBreaker.State.OPEN;
+                } else if (printed) {
+                    // 记录打印机每张小票的平均耗时，供打印机组路由参考
+                    long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) / claimed.size();
+                    printerRouter.recordSuccess(printerName, latencyMillis);
+                    circuitBreaker.recordSuccess(printerName);
+                }
 
-                        } else {
-                            handleFailedTask(task);
-                        }
-                        // 更新持久化状态
-                        printTaskPersistence.savePendingTask(task);
-                    });
-                } catch (Exception e) {
-                    handlePrintResult(task, false);
-                    handleFailedTask(task);
+                for (int i = 0; i < claimed.size(); i++) {
+                    PrintTask task = claimed.get(i);
+                    UnifiedPrintService.PrintResult result = results.get(i);
+                    if (open && !result.isSuccess()) {
+                        // 打印机已熔断，整批失败的任务都放回队列等待恢复，不消耗重试次数
+                        parkTask(task);
+                    } else {
+                        handleResult(task, result);
+                    }
                 }
             });
+        } catch (Exception e) {
+            for (PrintTask task : claimed) {
+                handlePrintResult(task, false);
+                handleFailedTask(task);
+            }
+            processed = CompletableFuture.completedFuture(null);
         }
+        return processed.whenComplete((result, ex) -> claimed.forEach(taskIndex::release));
+    }
+
+    // 处理单个任务的打印结果
+    private void handleResult(PrintTask task, UnifiedPrintService.PrintResult result) {
+        if (result.isSuccess()) {
+            task.setStatus(PrintTaskStatus.COMPLETED);
+            taskIndex.remove(task);
+            log.info("打印任务完成: {}", task.getTaskId());
+
+            // 通知客户端和远程服务器任务状态
+            notificationService.notifyAll(task);
+            // 打印成功时已写入已完成目录，不再保存为待处理任务
+
+        } else {
+            handleFailedTask(task);
+            // 更新持久化状态
+            printTaskPersistence.savePendingTask(task);
+        }
+    }
+
+    // 放回队列等待打印机恢复；发往打印机组的任务重新选择成员，组内没有存在的成员时留在原成员上
+    private void parkTask(PrintTask task) {
+        task.setStatus(PrintTaskStatus.PENDING);
+        printerRouter.route(task);
+        if (!printQueue.offer(task)) {
+            handleFailedTask(task);
+            printTaskPersistence.savePendingTask(task);
+            return;
+        }
+        log.warn("打印机熔断, 任务放回队列等待恢复: {}, 打印机: {}", task.getTaskId(), task.getPrinterName());
+        printTaskPersistence.savePendingTask(task);
+
+        // 通知客户端和远程服务器任务状态
+        notificationService.notifyAll(task);
+    }
+
+    /**
+     * 取消打印任务
+     * 排队中或等待重试的任务打上取消标记并删除持久化文件，正在打印的任务无法取消
+     */
+    public PrintTaskIndex.CancelResult cancelTask(String taskId) {
+        PrintTask task = taskIndex.get(taskId);
+        if (task == null) {
+            // 完成的任务已移出索引，按已完成任务的记录区分
+            return printTaskPersistence.findCompletedTask(taskId) != null
+                    ? PrintTaskIndex.CancelResult.COMPLETED : PrintTaskIndex.CancelResult.NOT_FOUND;
+        }
+        PrintTaskIndex.CancelResult result = taskIndex.cancel(task);
+        if (result == PrintTaskIndex.CancelResult.CANCELLED) {
+            // 排队中和等待重试的任务都只留下墓碑，出队或退避到期时跳过
+            printTaskPersistence.deleteTask(task);
+            // 已取消的任务允许客户端重新提交
+            deduplicator.forget(task, task.getIdempotencyKey());
+            log.info("打印任务已取消: {}", taskId);
+
+            // 通知客户端和远程服务器任务状态
+            notificationService.notifyAll(task);
+        }
+        return result;
     }
 
     // 处理失败任务
@@ -142,34 +319,40 @@ public class PrintQueueManager {
         notificationService.notifyAll(task);
 
         if (task.getRetryCount() < maxRetry) {
-            try {
-                // 使用put方法确保任务一定能重新入队
-                printQueue.put(task);
-                log.info("打印任务重新入队: {}, 重试次数: {}", task.getTaskId(), task.getRetryCount());
-
-                // 添加延迟重试机制
-                long waitTime = (long) (Math.pow(2, task.getRetryCount()) * 1000L);
-                long jitter = new Random().nextInt(1000);// 随机延迟时间
-                Thread.sleep(waitTime + jitter); // 重试间隔逐渐增加
-            } catch (InterruptedException e) {
-                // 重新入队失败
-                Thread.currentThread().interrupt();
-                log.error("打印任务重新入队失败: {}", task.getTaskId(), e);
-            }
+            // 重试间隔逐渐增加，退避期间任务由重试调度器保管，不占用工作线程
+            long delay = PrintRetryScheduler.backoffMillis(task.getRetryCount(), retryBaseDelay, retryMaxJitter);
+            retryScheduler.schedule(task, delay, TimeUnit.MILLISECONDS);
+            log.info("打印任务将在{}毫秒后重试: {}, 重试次数: {}",
+                    delay, task.getTaskId(), task.getRetryCount());
         } else {
+            taskIndex.remove(task);
+            // 最终失败的任务允许客户端重新提交
+            deduplicator.forget(task, task.getIdempotencyKey());
             log.error("打印任务达到最大重试次数: {}", task.getTaskId());
         }
     }
 
     // 添加自定义异常
     public static class PrintQueueFullException extends RuntimeException {
-        public PrintQueueFullException(String message) {
+        // 建议客户端重试的等待秒数
+        private final int retryAfterSeconds;
+
+        public PrintQueueFullException(String message, int retryAfterSeconds) {
             super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
         }
     }
 
     // 添加自定义异常
     public static class PrintTaskException extends RuntimeException {
+        public PrintTaskException(String message) {
+            super(message);
+        }
+
         public PrintTaskException(String message, Throwable cause) {
             super(message, cause);
         }
@@ -180,12 +363,35 @@ public class PrintQueueManager {
         return printQueue.size();
     }
 
+    // 打印机组成员的负载和健康状态
+    public Map<String, List<Map<String, Object>>> getPrinterGroupStatus() {
+        return printerRouter.getGroupStatus();
+    }
+
+    // 各打印机的熔断状态
+    public Map<String, Map<String, Object>> getCircuitBreakerStatus() {
+        return circuitBreaker.getStatus();
+    }
+
+    // 等待退避重试的任务数
+    public int getRetryPendingCount() {
+        return retryScheduler.size();
+    }
+
+    // 各打印机的队列深度
+    public Map<String, Integer> getQueueSizeByPrinter() {
+        return printQueue.sizeByPrinter();
+    }
+
     // 在系统启动时加载未完成的任务
     @PostConstruct
     public void init() {
         List<PrintTask> pendingTasks = printTaskPersistence.loadPendingTasks();
         pendingTasks.forEach(task -> {
             try {
+                taskIndex.register(task);
+                // 打印机组成员可能已调整，重新选择
+                printerRouter.route(task);
                 printQueue.put(task);
                 log.info("成功加载持久化任务: {}", task.getTaskId());
             } catch (InterruptedException e) {
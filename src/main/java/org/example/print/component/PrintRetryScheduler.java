@@ -0,0 +1,127 @@
+package org.example.print.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打印任务延迟重试调度器
+ * 失败任务在DelayQueue中等待退避时间结束，由单独的线程放回打印队列，
+ * 打印工作线程不再为退避而休眠。
+ * 取消不从DelayQueue中查找删除（需要加锁遍历），已取消的任务留在队列中，到期时按墓碑跳过
+ */
+@Component
+@Slf4j
+public class PrintRetryScheduler {
+
+    // 打印队列已满时再次尝试放回的间隔
+    private static final long REQUEUE_RETRY_MILLIS = 500;
+
+    private final PrintQueue printQueue;
+    private final PrinterRouter printerRouter;
+    private final DelayQueue<DelayedTask> delayQueue = new DelayQueue<>();
+    private volatile boolean running;
+    private Thread releaseThread;
+
+    @Autowired
+    public PrintRetryScheduler(PrintQueue printQueue, PrinterRouter printerRouter) {
+        this.printQueue = printQueue;
+        this.printerRouter = printerRouter;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        releaseThread = new Thread(this::releaseLoop, "print-retry");
+        releaseThread.setDaemon(true);
+        releaseThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        releaseThread.interrupt();
+        // 等待中的任务已持久化，下次启动时重新加载
+        log.info("重试调度器已停止, 等待重试的任务数: {}", delayQueue.size());
+    }
+
+    /**
+     * 在指定延迟后将任务放回打印队列
+     */
+    public void schedule(PrintTask task, long delay, TimeUnit unit) {
+        delayQueue.put(new DelayedTask(task, System.nanoTime() + unit.toNanos(delay)));
+    }
+
+    /**
+     * 第retryCount次重试前的等待时间：2^retryCount * baseDelay，再加[0, maxJitter)的随机抖动，
+     * 避免同时失败的任务同时重试
+     */
+    public static long backoffMillis(int retryCount, long baseDelay, long maxJitter) {
+        long waitTime = (1L << retryCount) * baseDelay;
+        long jitter = maxJitter > 0 ? ThreadLocalRandom.current().nextLong(maxJitter) : 0;
+        return waitTime + jitter;
+    }
+
+    // 等待重试的任务数，包括已取消、尚未到期的任务
+    public int size() {
+        return delayQueue.size();
+    }
+
+    private void releaseLoop() {
+        while (running) {
+            DelayedTask delayed;
+            try {
+                delayed = delayQueue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            PrintTask task = delayed.task;
+            // 与取消操作互斥，避免覆盖取消标记
+            synchronized (task) {
+                if (PrintTaskIndex.isCancelled(task)) {
+                    log.info("打印任务已取消, 不再重试: {}", task.getTaskId());
+                    continue;
+                }
+                task.setStatus(PrintTaskStatus.PENDING);
+            }
+            // 发往打印机组的任务重新选择成员，避开刚失败的打印机；组内没有存在的成员时留在原成员上
+            printerRouter.route(task);
+            if (printQueue.offer(task)) {
+                log.info("打印任务退避结束, 重新入队: {}, 重试次数: {}", task.getTaskId(), task.getRetryCount());
+            } else {
+                // 队列已满时不阻塞本线程，稍后再放回
+                log.warn("打印队列已满, 延后重新入队: {}", task.getTaskId());
+                schedule(task, REQUEUE_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private static final class DelayedTask implements Delayed {
+        private final PrintTask task;
+        private final long releaseNanos;
+
+        private DelayedTask(PrintTask task, long releaseNanos) {
+            this.task = task;
+            this.releaseNanos = releaseNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(releaseNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
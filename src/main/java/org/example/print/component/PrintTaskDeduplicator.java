@@ -0,0 +1,231 @@
+package org.example.print.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.print.bean.PrintTask;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打印任务去重
+ * 同一订单可能经STOMP推送、定时轮询和POS客户端重复提交，
+ * 在时间窗口内按taskId、内容哈希和Idempotency-Key判重，每次判重为O(1)。
+ * 有界LRU（按插入顺序过期）精确记录最近的key；
+ * 高峰时窗口内的key数量可能超过LRU容量，可选的布隆过滤器接住被容量挤出的key，
+ * 以fpp的误判概率换取固定内存下覆盖整个窗口
+ */
+@Component
+@Slf4j
+public class PrintTaskDeduplicator {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    @Value("${print.dedupe.enabled:true}")
+    private boolean enabled;
+
+    @Value("${print.dedupe.window:600}")
+    private long windowSeconds;
+
+    @Value("${print.dedupe.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${print.dedupe.bloom-filter.enabled:false}")
+    private boolean bloomEnabled;
+
+    @Value("${print.dedupe.bloom-filter.expected-insertions:100000}")
+    private int bloomExpectedInsertions;
+
+    @Value("${print.dedupe.bloom-filter.fpp:0.000001}")
+    private double bloomFpp;
+
+    // key -> 首次出现时间，按插入顺序排列，队首最旧
+    private LinkedHashMap<String, Long> seen;
+    private long windowMillis;
+
+    // 两个布隆过滤器轮换，每个窗口丢弃较旧的一个，均在锁内访问
+    private BloomFilter currentBloom;
+    private BloomFilter previousBloom;
+    private long bloomRotatedAt;
+
+    @PostConstruct
+    public void init() {
+        windowMillis = TimeUnit.SECONDS.toMillis(windowSeconds);
+        seen = new LinkedHashMap<String, Long>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                // 仍在窗口内却被容量挤出的key转入布隆过滤器
+                if (bloomEnabled && System.currentTimeMillis() - eldest.getValue() < windowMillis) {
+                    currentBloom.put(eldest.getKey());
+                }
+                return true;
+            }
+        };
+        if (bloomEnabled) {
+            currentBloom = new BloomFilter(bloomExpectedInsertions, bloomFpp);
+            previousBloom = new BloomFilter(bloomExpectedInsertions, bloomFpp);
+            bloomRotatedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 判重并记录
+     *
+     * @return true 表示新任务（已记录），false 表示窗口内重复
+     */
+    public boolean checkAndRecord(PrintTask task, String idempotencyKey) {
+        if (!enabled) {
+            return true;
+        }
+        List<String> keys = keysOf(task, idempotencyKey);
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            expire(now);
+            for (String key : keys) {
+                if (seen.containsKey(key)) {
+                    log.info("重复的打印任务已忽略: {}, 命中: {}", task.getTaskId(), key);
+                    return false;
+                }
+            }
+            if (bloomEnabled && mightContainAny(keys, now)) {
+                log.info("重复的打印任务已忽略(布隆过滤器): {}", task.getTaskId());
+                return false;
+            }
+            for (String key : keys) {
+                seen.put(key, now);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 任务未能入队、最终失败或被取消时撤销记录，客户端稍后重新提交不应被判为重复
+     * 仍在LRU中的key可以精确撤销；已被挤入布隆过滤器的key无法撤销，窗口结束前仍按重复处理
+     */
+    public void forget(PrintTask task, String idempotencyKey) {
+        if (!enabled) {
+            return;
+        }
+        List<String> keys = keysOf(task, idempotencyKey);
+        synchronized (this) {
+            keys.forEach(seen::remove);
+        }
+    }
+
+    public synchronized int size() {
+        return seen.size();
+    }
+
+    private List<String> keysOf(PrintTask task, String idempotencyKey) {
+        List<String> keys = new ArrayList<>(3);
+        if (idempotencyKey != null && !idempotencyKey.isEmpty()) {
+            keys.add("key:" + idempotencyKey);
+        }
+        if (task.getTaskId() != null) {
+            keys.add("id:" + task.getTaskId());
+        }
+        if (task.getContent() != null && !task.getContent().isEmpty()) {
+            // 同样内容发往不同打印机不算重复；发往打印机组的按组判重，与路由到哪个成员无关
+            String target = task.getPrinterGroup() != null ? task.getPrinterGroup() : task.getPrinterName();
+            keys.add("hash:" + target + ":" + Long.toHexString(hash64(task.getContent())));
+        }
+        return keys;
+    }
+
+    // 调用方需持有锁；队首最旧，过期的依次移除，均摊O(1)
+    private void expire(long now) {
+        Iterator<Long> it = seen.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next() < windowMillis) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    // 调用方需持有锁
+    private boolean mightContainAny(List<String> keys, long now) {
+        rotateBloomIfNeeded(now);
+        BloomFilter current = currentBloom;
+        BloomFilter previous = previousBloom;
+        for (String key : keys) {
+            if (current.mightContain(key) || previous.mightContain(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 每个窗口轮换一次，被挤出的key至少保留一个窗口
+    private void rotateBloomIfNeeded(long now) {
+        if (now - bloomRotatedAt >= windowMillis) {
+            previousBloom = currentBloom;
+            currentBloom = new BloomFilter(bloomExpectedInsertions, bloomFpp);
+            bloomRotatedAt = now;
+        }
+    }
+
+    /**
+     * 64位FNV-1a哈希
+     */
+    static long hash64(CharSequence value) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * 布隆过滤器，使用双重哈希生成k个位置
+     */
+    static final class BloomFilter {
+        private final long[] bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedInsertions, double fpp) {
+            long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            this.bitCount = Math.max(64, m);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+            this.bits = new long[(int) ((bitCount + 63) >>> 6)];
+        }
+
+        void put(String key) {
+            long hash = hash64(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = Math.floorMod(h1 + (long) i * h2, bitCount);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                bits[word] |= mask;
+            }
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash64(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = Math.floorMod(h1 + (long) i * h2, bitCount);
+                if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
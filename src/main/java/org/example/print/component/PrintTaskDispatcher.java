@@ -0,0 +1,255 @@
+package org.example.print.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.print.bean.PrintTask;
+import org.example.print.config.VirtualThreads;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * 打印任务分发器
+ * 每台打印机一个专用的串行工作线程，阻塞等待该打印机的队列，
+ * 任务到达后交给printTaskExecutor执行，执行完毕再取下一个，
+ * 保证同一打印机按顺序打印，不同打印机之间并行且互不阻塞。
+ * 取到任务时顺带取出该打印机已在排队的任务（最多print.batch.max-size个，
+ * 可等待print.batch.linger毫秒），合并为一个打印作业。
+ * print.executor.mode=virtual 且JDK支持时工作线程为虚拟线程，打印机数量多时不占用平台线程
+ */
+@Component
+@Slf4j
+public class PrintTaskDispatcher implements SmartLifecycle {
+
+    // 线程池拒绝的任务交给重试调度器，在该间隔后放回打印队列
+    private static final long REJECT_RETRY_MILLIS = 100;
+
+    private final PrintQueue printQueue;
+    private final Executor taskExecutor;
+    private final Function<List<PrintTask>, CompletableFuture<?>> batchHandler;
+    private final PrinterRateLimiter rateLimiter;
+    private final PrinterCircuitBreaker circuitBreaker;
+    private final PrintRetryScheduler retryScheduler;
+    private final int maxBatchSize;
+    private final long lingerMillis;
+    private final Map<String, PrinterWorker> workers = new ConcurrentHashMap<>();
+
+    @Value("${print.dispatcher.shutdown-timeout:10}")
+    private long shutdownTimeout = 10;
+
+    @Value("${print.executor.mode:platform}")
+    private String executorMode = "platform";
+
+    // 工作线程工厂，虚拟线程不可用时为null，使用平台守护线程
+    private ThreadFactory workerFactory;
+
+    private volatile boolean running;
+
+    @Autowired
+    public PrintTaskDispatcher(
+            PrintQueue printQueue,
+            @Qualifier("printTaskExecutor") Executor taskExecutor,
+            PrintQueueManager printQueueManager,
+            PrinterRateLimiter rateLimiter,
+            PrinterCircuitBreaker circuitBreaker,
+            PrintRetryScheduler retryScheduler,
+            @Value("${print.batch.max-size:8}") int maxBatchSize,
+            @Value("${print.batch.linger:0}") long lingerMillis) {
+        this(printQueue, taskExecutor, printQueueManager::processBatch, rateLimiter, circuitBreaker,
+                retryScheduler, maxBatchSize, lingerMillis);
+    }
+
+    public PrintTaskDispatcher(
+            PrintQueue printQueue,
+            Executor taskExecutor,
+            Function<List<PrintTask>, CompletableFuture<?>> batchHandler,
+            PrinterRateLimiter rateLimiter,
+            PrinterCircuitBreaker circuitBreaker,
+            PrintRetryScheduler retryScheduler,
+            int maxBatchSize,
+            long lingerMillis) {
+        this.printQueue = printQueue;
+        this.taskExecutor = taskExecutor;
+        this.batchHandler = batchHandler;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.retryScheduler = retryScheduler;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.lingerMillis = lingerMillis;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        workerFactory = "virtual".equalsIgnoreCase(executorMode)
+                ? VirtualThreads.factory("printer-worker-") : null;
+        // 已有的和之后新出现的打印机队列都会启动对应的工作线程
+        printQueue.addLaneListener(this::startWorker);
+        log.info("打印任务分发器已启动");
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        workers.values().forEach(PrinterWorker::interrupt);
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(shutdownTimeout);
+            for (PrinterWorker worker : workers.values()) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                worker.join(Math.max(remaining, 1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.clear();
+        // 未分发的任务仍在持久化目录中，下次启动时重新加载
+        log.info("打印任务分发器已停止, 队列剩余任务数: {}", printQueue.size());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void startWorker(String printerName) {
+        if (!running) {
+            return;
+        }
+        workers.computeIfAbsent(printerName, name -> {
+            PrinterWorker worker = new PrinterWorker(name);
+            worker.start();
+            log.info("启动打印机工作线程: {}", name);
+            return worker;
+        });
+    }
+
+    /**
+     * 单台打印机的串行工作线程
+     */
+    private class PrinterWorker implements Runnable {
+        private final String printerName;
+        private final Thread thread;
+
+        PrinterWorker(String printerName) {
+            this.printerName = printerName;
+            if (workerFactory != null) {
+                thread = workerFactory.newThread(this);
+            } else {
+                thread = new Thread(this);
+                thread.setDaemon(true);
+            }
+            thread.setName("printer-worker-" + printerName);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        void interrupt() {
+            thread.interrupt();
+        }
+
+        void join(long millis) throws InterruptedException {
+            thread.join(millis);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                List<PrintTask> batch;
+                try {
+                    batch = nextBatch();
+                } catch (InterruptedException e) {
+                    break;
+                }
+                execute(batch);
+            }
+        }
+
+        // 等待限速令牌后阻塞取出第一个任务，再按剩余令牌取出同一打印机已在排队的任务
+        // 限速期间任务留在队列中，仍可取消，新到的高优先级任务也能排到前面
+        // 打印机熔断期间不取任务，半开时只取一个任务试打
+        private List<PrintTask> nextBatch() throws InterruptedException {
+            circuitBreaker.awaitPermit(printerName);
+            rateLimiter.awaitPermit(printerName);
+            List<PrintTask> batch = new ArrayList<>(maxBatchSize);
+            batch.add(printQueue.take(printerName));
+            int maxSize = circuitBreaker.getState(printerName) == PrinterCircuitBreaker.State.HALF_OPEN
+                    ? 1 : maxBatchSize;
+            int permits = rateLimiter.tryAcquireJobs(printerName, maxSize);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+            // 每台打印机只有一个工作线程使用其令牌桶，awaitPermit之后至少有一个令牌
+            int limit = Math.max(1, permits);
+            while (batch.size() < limit) {
+                PrintTask next = printQueue.poll(printerName,
+                        Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+            }
+            rateLimiter.refundJobs(printerName, permits - batch.size());
+            return batch;
+        }
+
+        // 交给线程池执行并等待完成，期间不取下一批任务
+        private void execute(List<PrintTask> batch) {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            try {
+                taskExecutor.execute(() -> {
+                    try {
+                        batchHandler.apply(batch).whenComplete((result, ex) -> done.complete(null));
+                    } catch (Exception e) {
+                        done.complete(null);
+                        log.error("分发打印任务失败: {}", batch.get(0).getTaskId(), e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // 线程池已满，整批交给重试调度器稍后放回队列，不消耗重试次数；
+                // 本线程不休眠也不阻塞，随即去取下一批。放回后排在队尾，让出顺序以换取不占用工作线程
+                log.warn("线程池拒绝打印任务, {}毫秒后放回队列: {}, 任务数: {}",
+                        REJECT_RETRY_MILLIS, batch.get(0).getTaskId(), batch.size());
+                for (PrintTask task : batch) {
+                    retryScheduler.schedule(task, REJECT_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+            awaitQuietly(done);
+        }
+
+        private void awaitQuietly(CompletableFuture<Void> done) {
+            try {
+                done.get();
+            } catch (InterruptedException e) {
+                // 停机中断，给执行中的任务留出收尾时间
+                try {
+                    done.get(shutdownTimeout, TimeUnit.SECONDS);
+                } catch (InterruptedException | ExecutionException | TimeoutException ex) {
+                    log.warn("等待打印机 {} 的执行中任务超时", printerName);
+                }
+            } catch (ExecutionException e) {
+                log.error("打印任务执行异常", e);
+            }
+        }
+    }
+}
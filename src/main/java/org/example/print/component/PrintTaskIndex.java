@@ -0,0 +1,90 @@
+package org.example.print.component;
+
+import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 打印任务索引
+ * 记录从入队到结束（完成、最终失败或取消）之间的所有任务，taskId -> 任务，O(1)查找。
+ * 取消时只打墓碑标记（状态置为CANCELLED），队列和重试调度器取出任务时跳过，
+ * 因此任何队列实现下取消都是常数时间
+ */
+@Component
+public class PrintTaskIndex {
+
+    /**
+     * 取消结果
+     */
+    public enum CancelResult {
+        CANCELLED,
+        PRINTING,
+        COMPLETED,
+        NOT_FOUND
+    }
+
+    private final ConcurrentHashMap<String, PrintTask> tasks = new ConcurrentHashMap<>();
+    // 已交给打印机执行、尚未处理完结果的任务
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public void register(PrintTask task) {
+        tasks.put(task.getTaskId(), task);
+    }
+
+    public PrintTask get(String taskId) {
+        return tasks.get(taskId);
+    }
+
+    // 任务结束后移出索引
+    public void remove(PrintTask task) {
+        tasks.remove(task.getTaskId(), task);
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * 开始打印前占用任务，已取消的任务返回false
+     */
+    public boolean claim(PrintTask task) {
+        synchronized (task) {
+            if (task.getStatus() == PrintTaskStatus.CANCELLED) {
+                return false;
+            }
+            inFlight.add(task.getTaskId());
+            return true;
+        }
+    }
+
+    // 打印结果处理完毕后释放占用
+    public void release(PrintTask task) {
+        synchronized (task) {
+            inFlight.remove(task.getTaskId());
+        }
+    }
+
+    /**
+     * 给排队中或等待重试的任务打上取消标记并移出索引；已完成的任务不在索引中，由调用方判断
+     */
+    public CancelResult cancel(PrintTask task) {
+        synchronized (task) {
+            if (inFlight.contains(task.getTaskId())) {
+                return CancelResult.PRINTING;
+            }
+            if (task.getStatus() == PrintTaskStatus.CANCELLED) {
+                return CancelResult.NOT_FOUND;
+            }
+            task.setStatus(PrintTaskStatus.CANCELLED);
+            tasks.remove(task.getTaskId(), task);
+            return CancelResult.CANCELLED;
+        }
+    }
+
+    public static boolean isCancelled(PrintTask task) {
+        return task.getStatus() == PrintTaskStatus.CANCELLED;
+    }
+}
@@ -16,35 +16,68 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
  * 打印任务持久化
+ * 已完成任务的文件名包含创建时间，按taskId无法直接定位，
+ * 启动时扫描一次completed_tasks的文件名（不解析内容）建立 taskId -> 文件名 索引，之后按taskId O(1)查找
  */
 @Component
 @Slf4j
 public class PrintTaskPersistence {
     private static final String TASK_DIR = "print_tasks";
     private static final String COMPLETED_DIR = "completed_tasks";
+    private static final String ERROR_DIR = "error_tasks";
     private final ObjectMapper objectMapper;
+    private final File taskDir;
+    private final File completedDir;
+    private final File errorDir;
+    // 已完成任务索引：taskId -> 文件名，同一任务重打后指向最近一次的文件
+    private final ConcurrentHashMap<String, String> completedIndex = new ConcurrentHashMap<>();
 
     @Autowired  // 注入全局配置的 ObjectMapper
     public PrintTaskPersistence(ObjectMapper objectMapper) {
+        this(objectMapper, new File("."));
+    }
+
+    public PrintTaskPersistence(ObjectMapper objectMapper, File baseDir) {
         this.objectMapper = objectMapper;
+        this.taskDir = new File(baseDir, TASK_DIR);
+        this.completedDir = new File(baseDir, COMPLETED_DIR);
+        this.errorDir = new File(baseDir, ERROR_DIR);
         initDirectories();
+        buildCompletedIndex();
     }
 
 
     private void initDirectories() {
-        new File(TASK_DIR).mkdirs();
-        new File(COMPLETED_DIR).mkdirs();
+        taskDir.mkdirs();
+        completedDir.mkdirs();
+    }
+
+    // 文件名为 taskId_创建时间.json，只解析文件名
+    private void buildCompletedIndex() {
+        String[] names = completedDir.list((dir, name) -> name.endsWith(".json"));
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            String taskId = taskIdOf(name);
+            if (taskId != null) {
+                // 同一任务有多个文件时保留创建时间最晚的
+                completedIndex.merge(taskId, name, (a, b) -> a.compareTo(b) >= 0 ? a : b);
+            }
+        }
+        log.info("已完成任务索引建立完成, 任务数: {}", completedIndex.size());
     }
 
 
     // 保存任务
     public void savePendingTask(PrintTask task) {
         String fileName = generateFileName(task);
-        saveTaskToFile(new File(TASK_DIR, fileName), task);
+        saveTaskToFile(new File(taskDir, fileName), task);
     }
 
 
@@ -54,7 +87,7 @@ public class PrintTaskPersistence {
      */
     public List<PrintTask> loadPendingTasks() {
         List<PrintTask> tasks = new ArrayList<>();
-        File pendingDir = new File(TASK_DIR);
+        File pendingDir = taskDir;
 
         if (!pendingDir.exists()) {
             log.info("待处理任务目录不存在，跳过加载");
@@ -111,9 +144,10 @@ public class PrintTaskPersistence {
      */
     private void moveToCompletedDirectory(File file, PrintTask task) {
         try {
-            File targetFile = new File(COMPLETED_DIR, file.getName());
+            File targetFile = new File(completedDir, file.getName());
             Files.move(file.toPath(), targetFile.toPath(),
                     StandardCopyOption.REPLACE_EXISTING);
+            completedIndex.put(task.getTaskId(), file.getName());
             log.info("任务已移动到已完成目录: {}", task.getTaskId());
         } catch (IOException e) {
             log.error("移动已完成任务失败: {}", task.getTaskId(), e);
@@ -125,7 +159,6 @@ public class PrintTaskPersistence {
      */
     private void moveToErrorDirectory(File file) {
         try {
-            File errorDir = new File("error_tasks");
             if (!errorDir.exists()) {
                 errorDir.mkdirs();
             }
@@ -140,34 +173,73 @@ public class PrintTaskPersistence {
     }
 
 
-    // 标记任务为已完成
+    // 标记任务为已完成：写入已完成目录（包含最终状态）并删除待处理文件
     public void markTaskAsCompleted(PrintTask task) {
         String fileName = generateFileName(task);
-        File sourceFile = new File(TASK_DIR, fileName);
-        File targetFile = new File(COMPLETED_DIR, fileName);
+        File sourceFile = new File(taskDir, fileName);
+        File targetFile = new File(completedDir, fileName);
 
         try {
-            if (sourceFile.exists()) {
-                Files.move(sourceFile.toPath(), targetFile.toPath(),
-                        StandardCopyOption.REPLACE_EXISTING);
-                log.info("任务已标记为完成: {}", task.getTaskId());
-            }
+            objectMapper.writeValue(targetFile, task);
+            completedIndex.put(task.getTaskId(), fileName);
+            Files.deleteIfExists(sourceFile.toPath());
+            log.info("任务已标记为完成: {}", task.getTaskId());
         } catch (IOException e) {
             log.error("标记任务完成失败: {}", task.getTaskId(), e);
         }
     }
 
 
+    /**
+     * 按taskId读取已完成的任务，不存在时返回null
+     */
+    public PrintTask findCompletedTask(String taskId) {
+        String fileName = completedIndex.get(taskId);
+        if (fileName == null) {
+            return null;
+        }
+        File file = new File(completedDir, fileName);
+        try {
+            return objectMapper.readValue(file, PrintTask.class);
+        } catch (IOException e) {
+            // 文件已被清理或损坏
+            log.warn("读取已完成任务失败: {}", fileName, e);
+            completedIndex.remove(taskId, fileName);
+            return null;
+        }
+    }
+
+    public int getCompletedCount() {
+        return completedIndex.size();
+    }
+
+
+    // 删除待处理任务文件（任务取消时使用）
+    public void deleteTask(PrintTask task) {
+        File file = new File(taskDir, generateFileName(task));
+        try {
+            if (Files.deleteIfExists(file.toPath())) {
+                log.info("任务文件已删除: {}", file.getName());
+            }
+        } catch (IOException e) {
+            log.error("删除任务文件失败: {}", task.getTaskId(), e);
+        }
+    }
+
+
     // 清理已完成的任务
     @Scheduled(cron = "0 0 0 * * ?")  // 每天零点执行
     public void cleanupCompletedTasks() {
-        File completedDir = new File(COMPLETED_DIR);
         if (completedDir.exists()) {
             File[] files = completedDir.listFiles();
             if (files != null) {
                 for (File file : files) {
                     if (file.lastModified() < System.currentTimeMillis() - 7 * 24 * 60 * 60 * 1000) {
                         if (file.delete()) {
+                            String taskId = taskIdOf(file.getName());
+                            if (taskId != null) {
+                                completedIndex.remove(taskId, file.getName());
+                            }
                             log.info("清理已完成任务: {}", file.getName());
                         }
                     }
@@ -184,6 +256,12 @@ public class PrintTaskPersistence {
                 task.getCreateTime().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")));
     }
 
+    // 从文件名中取出taskId，taskId本身可能包含下划线
+    private static String taskIdOf(String fileName) {
+        int separator = fileName.lastIndexOf('_');
+        return separator > 0 ? fileName.substring(0, separator) : null;
+    }
+
     // 保存任务到文件
     private void saveTaskToFile(File file, PrintTask task) {
         try {
@@ -5,6 +5,7 @@ import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
 import lombok.extern.slf4j.Slf4j;
 import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskPriority;
 import org.example.print.bean.PrintTaskStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -120,19 +121,29 @@ public class PrintWebSocketHandler extends TextWebSocketHandler {
                 // 创建打印任务
                 PrintTask task = PrintTask.builder()
                         .taskId(UUID.randomUUID().toString())
-                        //todo打印两份
                         .content(printData.toJSONString())
+                        // 需要多份时由前端传copies，如 {"copies": 2}
+                        .copies(PrintTask.parseCopies(printData.get("copies")))
                         .status(PrintTaskStatus.PENDING)
                         .createTime(LocalDateTime.now())
                         .retryCount(0)
                         .printerName("GP-C58 Series")
+                        .priority(PrintTaskPriority.parse(printData.get("priority")))
                         .build();
                 try {
-                    // 添加到打印队列
+                    // 添加到打印队列，重复任务同样回复成功
                     printQueueManager.addPrintTask(task);
 
                     // 发送接收确认
                     session.sendMessage(new TextMessage("{\"type\":\"success\",\"message\":\"打印成功\"}"));
+                } catch (PrintQueueManager.PrintQueueFullException e) {
+                    log.warn("打印队列繁忙，拒绝打印请求: {}", task.getTaskId());
+                    // 发送繁忙消息，前端应在retryAfter秒后重试
+                    JSONObject busy = new JSONObject();
+                    busy.put("type", "busy");
+                    busy.put("message", e.getMessage());
+                    busy.put("retryAfter", e.getRetryAfterSeconds());
+                    session.sendMessage(new TextMessage(busy.toJSONString()));
                 } catch (Exception e) {
                     log.error("打印失败", e);
                     // 发送打印状态回前端
@@ -0,0 +1,200 @@
+package org.example.print.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.print.service.PrintTaskNotificationService;
+import org.example.print.service.UnifiedPrintService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 打印机熔断器
+ * 打印机连续失败达到阈值后熔断(OPEN)：该打印机的工作线程暂停取任务，任务留在队列中，不消耗重试次数。
+ * 熔断期满后由工作线程做一次轻量探测（只读取打印机状态属性，不打印），通过则半开(HALF_OPEN)，
+ * 放行单个任务试打，成功后恢复(CLOSED)，失败则再次熔断。
+ * 状态变化推送到/topic/print-status
+ */
+@Component
+@Slf4j
+public class PrinterCircuitBreaker {
+
+    /**
+     * 熔断状态
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final Predicate<String> probe;
+    private final Consumer<Map<String, Object>> publisher;
+    private final int failureThreshold;
+    private final long openDurationMillis;
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PrinterCircuitBreaker(
+            UnifiedPrintService printService,
+            PrintTaskNotificationService notificationService,
+            @Value("${print.circuit-breaker.failure-threshold:3}") int failureThreshold,
+            @Value("${print.circuit-breaker.open-duration:30}") long openDurationSeconds) {
+        this(printService::probePrinter,
+                event -> notificationService.sendWebSocketMessage("/topic/print-status", event),
+                failureThreshold, TimeUnit.SECONDS.toMillis(openDurationSeconds));
+    }
+
+    public PrinterCircuitBreaker(
+            Predicate<String> probe,
+            Consumer<Map<String, Object>> publisher,
+            int failureThreshold,
+            long openDurationMillis) {
+        this.probe = probe;
+        this.publisher = publisher;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = openDurationMillis;
+    }
+
+    /**
+     * 熔断期间阻塞，期满后探测打印机；返回时状态为CLOSED或HALF_OPEN
+     */
+    public void awaitPermit(String printerName) throws InterruptedException {
+        Breaker breaker = breaker(printerName);
+        while (true) {
+            long waitMillis;
+            synchronized (breaker) {
+                if (breaker.state != State.OPEN) {
+                    return;
+                }
+                waitMillis = breaker.openedAt + openDurationMillis - System.currentTimeMillis();
+                if (waitMillis > 0) {
+                    breaker.wait(waitMillis);
+                    continue;
+                }
+            }
+            // 探测可能较慢，不持有锁
+            boolean ready;
+            try {
+                ready = probe.test(printerName);
+            } catch (Exception e) {
+                log.warn("探测打印机状态失败: {}", printerName, e);
+                ready = false;
+            }
+            if (ready) {
+                transition(printerName, breaker, State.HALF_OPEN);
+            } else {
+                synchronized (breaker) {
+                    breaker.openedAt = System.currentTimeMillis();
+                }
+                log.info("打印机仍不可用, {}毫秒后再次探测: {}", openDurationMillis, printerName);
+            }
+        }
+    }
+
+    public void recordSuccess(String printerName) {
+        Breaker breaker = breaker(printerName);
+        synchronized (breaker) {
+            breaker.consecutiveFailures = 0;
+        }
+        transition(printerName, breaker, State.CLOSED);
+    }
+
+    /**
+     * 记录打印机故障导致的失败，返回记录后的状态
+     */
+    public State recordFailure(String printerName) {
+        Breaker breaker = breaker(printerName);
+        boolean open;
+        synchronized (breaker) {
+            breaker.consecutiveFailures++;
+            open = breaker.state == State.HALF_OPEN
+                    || (breaker.state == State.CLOSED && breaker.consecutiveFailures >= failureThreshold);
+        }
+        if (open) {
+            transition(printerName, breaker, State.OPEN);
+        }
+        return getState(printerName);
+    }
+
+    public State getState(String printerName) {
+        Breaker breaker = breakers.get(printerName);
+        return breaker == null ? State.CLOSED : breaker.state;
+    }
+
+    /**
+     * 各打印机的熔断状态，用于监控
+     */
+    public Map<String, Map<String, Object>> getStatus() {
+        Map<String, Map<String, Object>> status = new TreeMap<>();
+        breakers.forEach((printerName, breaker) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            synchronized (breaker) {
+                item.put("state", breaker.state.name());
+                item.put("consecutiveFailures", breaker.consecutiveFailures);
+                if (breaker.state == State.OPEN) {
+                    item.put("nextProbeInMs", Math.max(0,
+                            breaker.openedAt + openDurationMillis - System.currentTimeMillis()));
+                }
+            }
+            status.put(printerName, item);
+        });
+        return status;
+    }
+
+    private void transition(String printerName, Breaker breaker, State target) {
+        State previous;
+        int failures;
+        synchronized (breaker) {
+            previous = breaker.state;
+            if (previous == target) {
+                return;
+            }
+            breaker.state = target;
+            if (target == State.OPEN) {
+                breaker.openedAt = System.currentTimeMillis();
+            }
+            failures = breaker.consecutiveFailures;
+            breaker.notifyAll();
+        }
+        if (target == State.OPEN) {
+            log.warn("打印机熔断, 暂停该打印机的任务: {}, 连续失败: {}", printerName, failures);
+        } else {
+            log.info("打印机熔断状态变化: {}, {} -> {}", printerName, previous, target);
+        }
+        publish(printerName, target, failures);
+    }
+
+    private void publish(String printerName, State state, int failures) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "circuit-breaker");
+        event.put("printerName", printerName);
+        event.put("state", state.name());
+        event.put("consecutiveFailures", failures);
+        event.put("timestamp", LocalDateTime.now().toString());
+        try {
+            publisher.accept(event);
+        } catch (Exception e) {
+            log.error("推送熔断事件失败: {}", printerName, e);
+        }
+    }
+
+    private Breaker breaker(String printerName) {
+        return breakers.computeIfAbsent(printerName, k -> new Breaker());
+    }
+
+    private static final class Breaker {
+        private volatile State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+    }
+}
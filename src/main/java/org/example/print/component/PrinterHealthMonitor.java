@@ -0,0 +1,162 @@
+package org.example.print.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.print.PrintService;
+import javax.print.attribute.standard.PrinterState;
+import javax.print.attribute.standard.PrinterStateReason;
+import javax.print.attribute.standard.PrinterStateReasons;
+import javax.print.attribute.standard.Severity;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 打印机健康监控
+ * 后台定期读取每台打印机的PrinterState和PrinterStateReasons，生成不可变快照，
+ * isPrinterReady和状态接口只读快照，不再在打印路径上查询打印机属性
+ */
+@Component
+@Slf4j
+public class PrinterHealthMonitor {
+
+    private final PrinterRegistry printerRegistry;
+    // 打印机名称 -> 最近一次采样结果，不可变，通过CAS整体替换，定时采样和探测并发更新时互不覆盖
+    private final AtomicReference<Map<String, PrinterHealth>> snapshot =
+            new AtomicReference<>(Collections.emptyMap());
+
+    @Autowired
+    public PrinterHealthMonitor(PrinterRegistry printerRegistry) {
+        this.printerRegistry = printerRegistry;
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${print.health.interval:5000}",
+            initialDelayString = "${print.health.interval:5000}")
+    public void sampleAll() {
+        Map<String, PrinterHealth> sampled = new LinkedHashMap<>();
+        for (PrintService service : printerRegistry.getAll()) {
+            sampled.put(service.getName(), sample(service));
+        }
+        Map<String, PrinterHealth> previous = snapshot.getAndUpdate(current -> {
+            Map<String, PrinterHealth> next = new LinkedHashMap<>(sampled);
+            // 采样期间探测得到的更新结果不被较旧的采样覆盖
+            current.forEach((name, health) -> next.computeIfPresent(name,
+                    (key, sample) -> health.getSampledAt() > sample.getSampledAt() ? health : sample));
+            return Collections.unmodifiableMap(next);
+        });
+        sampled.values().forEach(health -> logTransition(previous.get(health.getPrinterName()), health));
+    }
+
+    /**
+     * 立即采样一台打印机并更新快照，用于熔断后的探测
+     */
+    public PrinterHealth probe(PrintService service) {
+        PrinterHealth health = sample(service);
+        Map<String, PrinterHealth> previous = snapshot.getAndUpdate(current -> {
+            Map<String, PrinterHealth> next = new LinkedHashMap<>(current);
+            next.put(service.getName(), health);
+            return Collections.unmodifiableMap(next);
+        });
+        logTransition(previous.get(service.getName()), health);
+        return health;
+    }
+
+    /**
+     * 读取快照；尚未采样的打印机视为就绪
+     */
+    public boolean isReady(String printerName) {
+        PrinterHealth health = snapshot.get().get(printerName);
+        return health == null || health.isReady();
+    }
+
+    // 尚未采样时返回null
+    public PrinterHealth get(String printerName) {
+        return snapshot.get().get(printerName);
+    }
+
+    public Map<String, PrinterHealth> getSnapshot() {
+        return snapshot.get();
+    }
+
+    private PrinterHealth sample(PrintService service) {
+        try {
+            PrinterState state = service.getAttribute(PrinterState.class);
+            PrinterStateReasons reasons = service.getAttribute(PrinterStateReasons.class);
+            List<String> reasonNames = new ArrayList<>();
+            boolean error = false;
+            if (reasons != null) {
+                for (Map.Entry<PrinterStateReason, Severity> entry : reasons.entrySet()) {
+                    reasonNames.add(entry.getKey() + "(" + entry.getValue() + ")");
+                    error |= entry.getValue() == Severity.ERROR;
+                }
+            }
+            // 拿不到状态的驱动假定可用
+            boolean ready = state != PrinterState.STOPPED && !error;
+            return new PrinterHealth(service.getName(), ready,
+                    state == null ? "unknown" : state.toString(), reasonNames, System.currentTimeMillis());
+        } catch (Exception e) {
+            log.warn("读取打印机状态失败: {}", service.getName(), e);
+            return new PrinterHealth(service.getName(), false, "error: " + e.getMessage(),
+                    Collections.emptyList(), System.currentTimeMillis());
+        }
+    }
+
+    private void logTransition(PrinterHealth previous, PrinterHealth current) {
+        if (previous != null && previous.isReady() == current.isReady()) {
+            return;
+        }
+        if (current.isReady()) {
+            log.info("打印机就绪: {}, 状态: {}", current.getPrinterName(), current.getState());
+        } else {
+            log.warn("打印机不可用: {}, 状态: {}, 原因: {}",
+                    current.getPrinterName(), current.getState(), current.getReasons());
+        }
+    }
+
+    /**
+     * 单台打印机的采样结果，不可变；也作为各打印后端上报的状态
+     */
+    public static final class PrinterHealth {
+        private final String printerName;
+        private final boolean ready;
+        private final String state;
+        private final List<String> reasons;
+        private final long sampledAt;
+
+        public PrinterHealth(String printerName, boolean ready, String state, List<String> reasons, long sampledAt) {
+            this.printerName = printerName;
+            this.ready = ready;
+            this.state = state;
+            this.reasons = Collections.unmodifiableList(reasons);
+            this.sampledAt = sampledAt;
+        }
+
+        public String getPrinterName() {
+            return printerName;
+        }
+
+        public boolean isReady() {
+            return ready;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        public List<String> getReasons() {
+            return reasons;
+        }
+
+        public long getSampledAt() {
+            return sampledAt;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.print.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.print.config.PrinterRateLimitProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打印机令牌桶限速
+ * 热敏打印机接收数据远快于打印速度，不限速时突发任务会全部堆进系统后台打印程序，
+ * 打印机断电重启时这些作业会丢失。每台打印机按作业数和字节数各一个令牌桶，
+ * 工作线程在从队列取任务前等待令牌，任务留在我们自己的队列中，仍可取消和按优先级调整。
+ * 字节数在渲染后才知道，先提交后扣除，桶可以欠账，欠账还清前不再提交
+ */
+@Component
+@Slf4j
+public class PrinterRateLimiter {
+
+    private final PrintQueue printQueue;
+    private final PrintMetrics printMetrics;
+    private final PrinterRateLimitProperties properties;
+    private final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PrinterRateLimiter(PrintQueue printQueue, PrintMetrics printMetrics,
+                              PrinterRateLimitProperties properties) {
+        this.printQueue = printQueue;
+        this.printMetrics = printMetrics;
+        this.properties = properties;
+    }
+
+    /**
+     * 等待到至少可以提交一个作业，不消耗令牌；等待时间计入限速统计
+     */
+    public void awaitPermit(String printerName) throws InterruptedException {
+        Limiter limiter = limiter(printerName);
+        long throttledNanos = 0;
+        long waitNanos;
+        while ((waitNanos = limiter.nanosUntilPermit()) > 0) {
+            long start = System.nanoTime();
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+            throttledNanos += System.nanoTime() - start;
+        }
+        if (throttledNanos > 0) {
+            printMetrics.recordThrottled(limiter.printerName, throttledNanos);
+            log.debug("打印机限速等待: {}, {}ms", limiter.printerName, TimeUnit.NANOSECONDS.toMillis(throttledNanos));
+        }
+    }
+
+    /**
+     * 取走最多max个作业令牌，返回实际取得的数量
+     */
+    public int tryAcquireJobs(String printerName, int max) {
+        return limiter(printerName).jobs.tryAcquire(max);
+    }
+
+    // 归还未使用的作业令牌
+    public void refundJobs(String printerName, int count) {
+        if (count > 0) {
+            limiter(printerName).jobs.refund(count);
+        }
+    }
+
+    // 作业提交后按实际字节数扣除
+    public void recordBytes(String printerName, long bytes) {
+        limiter(printerName).bytes.consume(bytes);
+    }
+
+    private Limiter limiter(String printerName) {
+        String key = printQueue.resolvePrinterName(printerName);
+        return limiters.computeIfAbsent(key, this::createLimiter);
+    }
+
+    private Limiter createLimiter(String printerName) {
+        double jobsPerSecond = properties.getJobsPerSecond();
+        double bytesPerSecond = properties.getBytesPerSecond();
+        PrinterRateLimitProperties.Limit override = properties.getPrinters().get(printerName);
+        if (override != null) {
+            if (override.getJobsPerSecond() != null) {
+                jobsPerSecond = override.getJobsPerSecond();
+            }
+            if (override.getBytesPerSecond() != null) {
+                bytesPerSecond = override.getBytesPerSecond();
+            }
+        }
+        if (jobsPerSecond > 0 || bytesPerSecond > 0) {
+            log.info("打印机限速: {}, 作业/秒: {}, 字节/秒: {}", printerName, jobsPerSecond, bytesPerSecond);
+        }
+        return new Limiter(printerName,
+                new TokenBucket(jobsPerSecond, Math.max(1, jobsPerSecond * properties.getBurst())),
+                new TokenBucket(bytesPerSecond, bytesPerSecond * properties.getBurst()));
+    }
+
+    private static final class Limiter {
+        private final String printerName;
+        private final TokenBucket jobs;
+        private final TokenBucket bytes;
+
+        private Limiter(String printerName, TokenBucket jobs, TokenBucket bytes) {
+            this.printerName = printerName;
+            this.jobs = jobs;
+            this.bytes = bytes;
+        }
+
+        // 作业令牌至少1个且字节桶没有欠账
+        long nanosUntilPermit() {
+            return Math.max(jobs.nanosUntil(1), bytes.nanosUntil(0));
+        }
+    }
+
+    /**
+     * 令牌桶，速率为0时不限速
+     */
+    static final class TokenBucket {
+        private final double ratePerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(double ratePerSecond, double capacity) {
+            this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        boolean isUnlimited() {
+            return ratePerNano <= 0;
+        }
+
+        synchronized long nanosUntil(double needed) {
+            if (isUnlimited()) {
+                return 0;
+            }
+            refill();
+            return tokens >= needed ? 0 : (long) Math.ceil((needed - tokens) / ratePerNano);
+        }
+
+        synchronized int tryAcquire(int max) {
+            if (isUnlimited()) {
+                return max;
+            }
+            refill();
+            int acquired = (int) Math.min(max, Math.floor(tokens));
+            tokens -= acquired;
+            return acquired;
+        }
+
+        synchronized void refund(int count) {
+            if (!isUnlimited()) {
+                tokens = Math.min(capacity, tokens + count);
+            }
+        }
+
+        synchronized void consume(double amount) {
+            if (!isUnlimited()) {
+                refill();
+                tokens -= amount;
+            }
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * ratePerNano);
+            lastRefillNanos = now;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.example.print.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.print.service.PrintTaskNotificationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.print.PrintService;
+import javax.print.PrintServiceLookup;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 打印机注册表
+ * PrintServiceLookup每次查询耗时几十到几百毫秒，这里缓存查询结果并按名称（忽略大小写）建立索引，
+ * 打印和状态接口只读缓存。后台按print.registry.refresh-interval定期刷新，也可以手动刷新；
+ * 按名称找不到打印机时在后台触发一次刷新（有最小间隔），调用线程不等待。
+ * 打印机增减时推送到/topic/print-status
+ */
+@Component
+@Slf4j
+public class PrinterRegistry {
+
+    private final Supplier<PrintService[]> lookup;
+    private final Consumer<Map<String, Object>> publisher;
+    private final Executor refreshExecutor;
+    private final long minRefreshIntervalMillis;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyList(), 0);
+
+    @Autowired
+    public PrinterRegistry(
+            PrintTaskNotificationService notificationService,
+            @Qualifier("printIoExecutor") Executor refreshExecutor,
+            @Value("${print.registry.min-refresh-interval:5000}") long minRefreshIntervalMillis) {
+        this(() -> PrintServiceLookup.lookupPrintServices(null, null),
+                event -> notificationService.sendWebSocketMessage("/topic/print-status", event),
+                refreshExecutor, minRefreshIntervalMillis);
+    }
+
+    public PrinterRegistry(
+            Supplier<PrintService[]> lookup,
+            Consumer<Map<String, Object>> publisher,
+            Executor refreshExecutor,
+            long minRefreshIntervalMillis) {
+        this.lookup = lookup;
+        this.publisher = publisher;
+        this.refreshExecutor = refreshExecutor;
+        this.minRefreshIntervalMillis = minRefreshIntervalMillis;
+    }
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${print.registry.refresh-interval:60000}",
+            initialDelayString = "${print.registry.refresh-interval:60000}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /**
+     * 重新查询打印机并替换缓存，返回刷新后的打印机列表
+     */
+    public synchronized List<PrintService> refresh() {
+        PrintService[] services;
+        try {
+            services = lookup.get();
+        } catch (Exception e) {
+            log.error("查询打印机失败, 保留上次结果", e);
+            return snapshot.services;
+        }
+        List<PrintService> list = services == null ? Collections.emptyList() : Arrays.asList(services);
+        Snapshot previous = snapshot;
+        snapshot = new Snapshot(list, System.currentTimeMillis());
+        detectChanges(previous, snapshot);
+        return list;
+    }
+
+    /**
+     * 按名称查找打印机，找不到时返回null并在后台刷新
+     */
+    public PrintService find(String printerName) {
+        if (printerName == null) {
+            return null;
+        }
+        PrintService service = snapshot.byName.get(normalize(printerName));
+        if (service == null) {
+            requestRefresh();
+        }
+        return service;
+    }
+
+    /**
+     * 按名称查找打印机，找不到时依次回退到默认打印机和第一台打印机，没有任何打印机时返回null
+     */
+    public PrintService resolve(String printerName, String defaultPrinterName) {
+        String target = printerName == null || printerName.trim().isEmpty() ? defaultPrinterName : printerName;
+        List<PrintService> services = snapshot.services;
+        if (services.isEmpty()) {
+            log.error("当前进程无法访问打印服务");
+            // 打印当前进程信息，帮助诊断
+            log.error("当前进程用户: " + System.getProperty("user.name"));
+            log.error("当前进程路径: " + System.getProperty("user.dir"));
+            return null;
+        }
+        // 按名称匹配，打印机组的成员各自对应一台设备
+        PrintService matched = find(target);
+        if (matched != null) {
+            return matched;
+        }
+        // 保持原来单打印机部署的行为
+        if (defaultPrinterName != null && !defaultPrinterName.equals(target)) {
+            matched = find(defaultPrinterName);
+            if (matched != null) {
+                log.warn("找不到打印机: {}, 使用配置的打印机: {}", target, defaultPrinterName);
+                return matched;
+            }
+        }
+        log.warn("找不到打印机: {}, 使用第一台打印机: {}", target, services.get(0).getName());
+        return services.get(0);
+    }
+
+    public List<PrintService> getAll() {
+        return snapshot.services;
+    }
+
+    public long getRefreshedAt() {
+        return snapshot.refreshedAt;
+    }
+
+    // 后台刷新，同一时间最多一个，且距上次刷新不少于最小间隔
+    private void requestRefresh() {
+        if (System.currentTimeMillis() - snapshot.refreshedAt < minRefreshIntervalMillis
+                || !refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh();
+                } finally {
+                    refreshPending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshPending.set(false);
+        }
+    }
+
+    private void detectChanges(Snapshot previous, Snapshot current) {
+        Set<String> added = new LinkedHashSet<>(current.names());
+        added.removeAll(previous.names());
+        Set<String> removed = new LinkedHashSet<>(previous.names());
+        removed.removeAll(current.names());
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        log.info("打印机列表变化, 新增: {}, 移除: {}", added, removed);
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "printers-changed");
+        event.put("added", added);
+        event.put("removed", removed);
+        event.put("printers", current.names());
+        event.put("timestamp", LocalDateTime.now().toString());
+        try {
+            publisher.accept(event);
+        } catch (Exception e) {
+            log.error("推送打印机变化事件失败", e);
+        }
+    }
+
+    private static String normalize(String printerName) {
+        return printerName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 不可变的查询结果
+     */
+    private static final class Snapshot {
+        private final List<PrintService> services;
+        private final Map<String, PrintService> byName;
+        private final long refreshedAt;
+
+        private Snapshot(List<PrintService> services, long refreshedAt) {
+            this.services = Collections.unmodifiableList(new ArrayList<>(services));
+            Map<String, PrintService> index = new LinkedHashMap<>();
+            for (PrintService service : services) {
+                index.putIfAbsent(normalize(service.getName()), service);
+            }
+            this.byName = Collections.unmodifiableMap(index);
+            this.refreshedAt = refreshedAt;
+        }
+
+        private List<String> names() {
+            List<String> names = new ArrayList<>(services.size());
+            services.forEach(service -> names.add(service.getName()));
+            return names;
+        }
+    }
+}
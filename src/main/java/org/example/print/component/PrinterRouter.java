@@ -0,0 +1,191 @@
+package org.example.print.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.print.backend.PrinterBackend;
+import org.example.print.bean.PrintTask;
+import org.example.print.config.PrinterGroupProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * 打印机组路由
+ * printerName为组名的任务分配给组内预计等待最短的成员：(队列深度 + 1) * 最近平均每张小票耗时。
+ * 只在存在的成员（打印后端能找到的打印机）中选择，已熔断或健康快照为未就绪（缺纸、脱机等）的成员被跳过，
+ * 存在的成员全部不健康时仍选其中负载最低的一台；
+ * 没有存在的成员时不会回退到组外的打印机。
+ * 任务记录所属组，重试或熔断放回队列时重新路由，可以换到其他成员
+ */
+@Component
+@Slf4j
+public class PrinterRouter {
+
+    // 指数加权平均的平滑系数
+    private static final double EWMA_ALPHA = 0.3;
+
+    private final PrintQueue printQueue;
+    private final Map<String, List<String>> groups;
+    private final PrinterCircuitBreaker circuitBreaker;
+    // 打印机是否存在
+    private final Predicate<String> available;
+    // 健康快照是否就绪，不在路由线程中查询打印机
+    private final Predicate<String> ready;
+    private final Map<String, PrinterStats> stats = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PrinterRouter(
+            PrintQueue printQueue,
+            PrinterGroupProperties groupProperties,
+            PrinterCircuitBreaker circuitBreaker,
+            PrinterBackend backend) {
+        this(printQueue, groupProperties, circuitBreaker, backend::isAvailable,
+                name -> backend.getStatus(name).isReady());
+    }
+
+    public PrinterRouter(
+            PrintQueue printQueue,
+            PrinterGroupProperties groupProperties,
+            PrinterCircuitBreaker circuitBreaker) {
+        this(printQueue, groupProperties, circuitBreaker, name -> true);
+    }
+
+    public PrinterRouter(
+            PrintQueue printQueue,
+            PrinterGroupProperties groupProperties,
+            PrinterCircuitBreaker circuitBreaker,
+            Predicate<String> available) {
+        this(printQueue, groupProperties, circuitBreaker, available, name -> true);
+    }
+
+    public PrinterRouter(
+            PrintQueue printQueue,
+            PrinterGroupProperties groupProperties,
+            PrinterCircuitBreaker circuitBreaker,
+            Predicate<String> available,
+            Predicate<String> ready) {
+        this.printQueue = printQueue;
+        this.groups = groupProperties.getGroups();
+        this.circuitBreaker = circuitBreaker;
+        this.available = available;
+        this.ready = ready;
+        groups.forEach((group, members) -> log.info("打印机组: {} -> {}", group, members));
+    }
+
+    public boolean isGroup(String name) {
+        return name != null && groups.containsKey(name);
+    }
+
+    /**
+     * 发往打印机组的任务改写为组内选中的成员，其他任务不变
+     *
+     * @return false 表示组内没有存在的成员，任务保持原来的打印机
+     */
+    public boolean route(PrintTask task) {
+        String group = task.getPrinterGroup();
+        if (group == null) {
+            String target = printQueue.resolvePrinterName(task.getPrinterName());
+            if (!isGroup(target)) {
+                return true;
+            }
+            group = target;
+            task.setPrinterGroup(group);
+        }
+        List<String> members = groups.get(group);
+        if (members == null || members.isEmpty()) {
+            // 组已从配置中删除，保留原来的打印机
+            log.warn("打印机组不存在或没有成员: {}, 任务: {}", group, task.getTaskId());
+            return true;
+        }
+        String member = choose(members);
+        if (member == null) {
+            log.warn("打印机组没有可用的成员: {}, 成员: {}, 任务: {}", group, members, task.getTaskId());
+            return false;
+        }
+        task.setPrinterName(member);
+        log.debug("打印任务{}路由到打印机组{}的成员: {}", task.getTaskId(), group, member);
+        return true;
+    }
+
+    // 打印成功，latencyMillis为每张小票的平均耗时
+    public void recordSuccess(String printerName, long latencyMillis) {
+        PrinterStats s = stats(printerName);
+        s.latencyEwma = s.latencyEwma == 0 ? latencyMillis
+                : s.latencyEwma + EWMA_ALPHA * (latencyMillis - s.latencyEwma);
+    }
+
+    public boolean isHealthy(String printerName) {
+        return circuitBreaker.getState(printerName) != PrinterCircuitBreaker.State.OPEN
+                && ready.test(printerName);
+    }
+
+    /**
+     * 各组成员的负载和健康状态，用于监控
+     */
+    public Map<String, List<Map<String, Object>>> getGroupStatus() {
+        Map<String, List<Map<String, Object>>> status = new LinkedHashMap<>();
+        groups.forEach((group, members) -> {
+            List<Map<String, Object>> memberStatus = new ArrayList<>();
+            for (String member : members) {
+                PrinterStats s = stats.get(member);
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("printerName", member);
+                item.put("queueSize", printQueue.size(member));
+                item.put("avgLatencyMs", s == null ? 0 : (long) s.latencyEwma);
+                boolean present = available.test(member);
+                item.put("available", present);
+                item.put("healthy", present && isHealthy(member));
+                memberStatus.add(item);
+            }
+            status.put(group, memberStatus);
+        });
+        return status;
+    }
+
+    // 组内没有存在的成员时返回null
+    private String choose(List<String> members) {
+        String best = null;
+        double bestScore = Double.MAX_VALUE;
+        String fallback = null;
+        double fallbackScore = Double.MAX_VALUE;
+        for (String member : members) {
+            if (!available.test(member)) {
+                continue;
+            }
+            double score = expectedWait(member);
+            if (score < fallbackScore) {
+                fallback = member;
+                fallbackScore = score;
+            }
+            if (isHealthy(member) && score < bestScore) {
+                best = member;
+                bestScore = score;
+            }
+        }
+        if (best == null && fallback != null) {
+            log.warn("打印机组成员均已熔断或未就绪, 选择负载最低的: {}", fallback);
+            return fallback;
+        }
+        return best;
+    }
+
+    // 预计等待时间；还没有耗时数据时按1毫秒计，只比较队列深度
+    private double expectedWait(String member) {
+        PrinterStats s = stats.get(member);
+        double latency = s == null ? 0 : s.latencyEwma;
+        return (printQueue.size(member) + 1) * Math.max(1.0, latency);
+    }
+
+    private PrinterStats stats(String printerName) {
+        return stats.computeIfAbsent(printQueue.resolvePrinterName(printerName), k -> new PrinterStats());
+    }
+
+    private static final class PrinterStats {
+        private volatile double latencyEwma;
+    }
+}
@@ -0,0 +1,283 @@
+package org.example.print.component;
+
+import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskPriority;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 带老化机制的有界优先级队列
+ * 排序键 = 入队时间 + 优先级惩罚（HIGH为0，MEDIUM为1个老化间隔，LOW为2个老化间隔），
+ * 键在入队时确定且不再变化，因此用二叉堆即可保证offer/poll为O(log n)。
+ * 等待超过惩罚时长的低优先级任务会排到之后入队的高优先级任务前面，不会被饿死。
+ */
+public class PriorityAgingTaskQueue extends AbstractQueue<PrintTask> implements BlockingQueue<PrintTask> {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingLong((Entry e) -> e.key)
+            .thenComparingLong(e -> e.sequence);
+
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>(ORDER);
+    private final int capacity;
+    private final long agingNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    // 相同键时保持先进先出
+    private long sequence;
+
+    public PriorityAgingTaskQueue(int capacity, long agingInterval, TimeUnit unit) {
+        this.capacity = capacity;
+        this.agingNanos = unit.toNanos(agingInterval);
+    }
+
+    private long keyOf(PrintTask task) {
+        PrintTaskPriority priority = task.getPriority() == null ? PrintTaskPriority.MEDIUM : task.getPriority();
+        return System.nanoTime() + priority.ordinal() * agingNanos;
+    }
+
+    // 调用方需持有锁
+    private void enqueue(PrintTask task) {
+        heap.add(new Entry(task, keyOf(task), sequence++));
+        notEmpty.signal();
+    }
+
+    // 调用方需持有锁
+    private PrintTask dequeue() {
+        Entry entry = heap.poll();
+        if (entry == null) {
+            return null;
+        }
+        notFull.signal();
+        return entry.task;
+    }
+
+    @Override
+    public boolean offer(PrintTask task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        lock.lock();
+        try {
+            if (heap.size() >= capacity) {
+                return false;
+            }
+            enqueue(task);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(PrintTask task, long timeout, TimeUnit unit) throws InterruptedException {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (heap.size() >= capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(task);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(PrintTask task) throws InterruptedException {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        lock.lockInterruptibly();
+        try {
+            while (heap.size() >= capacity) {
+                notFull.await();
+            }
+            enqueue(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public PrintTask poll() {
+        lock.lock();
+        try {
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public PrintTask poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (heap.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public PrintTask take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (heap.isEmpty()) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public PrintTask peek() {
+        lock.lock();
+        try {
+            Entry entry = heap.peek();
+            return entry == null ? null : entry.task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return heap.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - heap.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        lock.lock();
+        try {
+            Iterator<Entry> it = heap.iterator();
+            while (it.hasNext()) {
+                if (it.next().task.equals(o)) {
+                    it.remove();
+                    notFull.signal();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super PrintTask> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super PrintTask> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        lock.lock();
+        try {
+            int n = 0;
+            while (n < maxElements && !heap.isEmpty()) {
+                c.add(dequeue());
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 返回快照迭代器（顺序不保证为出队顺序）
+     */
+    @Override
+    public Iterator<PrintTask> iterator() {
+        List<PrintTask> snapshot;
+        lock.lock();
+        try {
+            snapshot = new ArrayList<>(heap.size());
+            for (Entry entry : heap) {
+                snapshot.add(entry.task);
+            }
+        } finally {
+            lock.unlock();
+        }
+        Iterator<PrintTask> it = snapshot.iterator();
+        return new Iterator<PrintTask>() {
+            private PrintTask last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public PrintTask next() {
+                last = it.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                PriorityAgingTaskQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    private static final class Entry {
+        private final PrintTask task;
+        private final long key;
+        private final long sequence;
+
+        private Entry(PrintTask task, long key, long sequence) {
+            this.task = task;
+            this.key = key;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package org.example.print.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.print.config.NetworkPrinterProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 网络打印机原始TCP(9100端口)客户端
+ * 一个NIO选择器线程驱动所有打印机的连接：每台打印机保持一个长连接，作业按提交顺序写入，
+ * 写入在write-timeout内没有进展则失败并断开；空闲超过idle-timeout的连接主动关闭。
+ * 复用的连接可能已被打印机关闭，作业还没写出任何字节时自动重连重发一次
+ */
+@Component
+@Slf4j
+public class RawTcpPrinterClient {
+
+    private static final long SELECT_TIMEOUT_MILLIS = 100;
+    private static final int READ_BUFFER_SIZE = 256;
+
+    private final NetworkPrinterProperties properties;
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    // 只在选择器线程中访问
+    private final Map<String, Connection> connections = new HashMap<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private Selector selector;
+    private Thread ioThread;
+    private volatile boolean running;
+
+    @Autowired
+    public RawTcpPrinterClient(NetworkPrinterProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 异步发送一个作业的数据，返回的future在数据全部写入socket后完成
+     * 空数据只建立连接，可用于探测打印机是否可达
+     */
+    public CompletableFuture<Void> send(String printerName, InetSocketAddress address, byte[] data) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            ensureStarted();
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        PendingWrite write = new PendingWrite(ByteBuffer.wrap(data), future);
+        commands.add(() -> enqueue(printerName, address, write));
+        selector.wakeup();
+        return future;
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            ioThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void ensureStarted() throws IOException {
+        if (running) {
+            return;
+        }
+        selector = Selector.open();
+        running = true;
+        ioThread = new Thread(this::ioLoop, "print-tcp-io");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    private void ioLoop() {
+        while (running) {
+            try {
+                selector.select(SELECT_TIMEOUT_MILLIS);
+                Runnable command;
+                while ((command = commands.poll()) != null) {
+                    command.run();
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    handle(key);
+                }
+                checkTimeouts(System.currentTimeMillis());
+            } catch (Exception e) {
+                log.error("网络打印机IO线程异常", e);
+            }
+        }
+        for (Connection connection : new ArrayList<>(connections.values())) {
+            fail(connection, new IOException("网络打印机客户端已停止"), false);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.debug("关闭选择器失败", e);
+        }
+    }
+
+    private void enqueue(String printerName, InetSocketAddress address, PendingWrite write) {
+        Connection connection = connections.get(printerName);
+        if (connection == null || !connection.address.equals(address)) {
+            if (connection != null) {
+                close(connection);
+            }
+            try {
+                connection = open(printerName, address);
+            } catch (IOException e) {
+                log.warn("连接网络打印机失败: {} {}", printerName, address, e);
+                write.future.completeExceptionally(e);
+                return;
+            }
+        }
+        connection.queue.add(write);
+        if (connection.connected) {
+            connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private Connection open(String printerName, InetSocketAddress address) throws IOException {
+        // 地址在配置中未解析，每次建立连接时解析，打印机更换IP后重连即可生效
+        InetSocketAddress resolved = address.isUnresolved()
+                ? new InetSocketAddress(address.getHostString(), address.getPort()) : address;
+        SocketChannel channel = SocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            Connection connection = new Connection(printerName, address, channel);
+            connection.connected = channel.connect(resolved);
+            connection.key = channel.register(selector,
+                    connection.connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, connection);
+            connection.lastActivity = System.currentTimeMillis();
+            connections.put(printerName, connection);
+            log.debug("连接网络打印机: {} {}", printerName, resolved);
+            return connection;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isConnectable()) {
+                connection.channel.finishConnect();
+                connection.connected = true;
+                connection.lastActivity = System.currentTimeMillis();
+                log.info("网络打印机已连接: {}", connection.printerName);
+            }
+            if (key.isReadable()) {
+                // 打印机可能回传状态字节，读出丢弃；读到-1表示打印机关闭了连接
+                // 转为Buffer调用，JDK 9+编译后仍能在Java 8上运行（ByteBuffer.clear()的协变返回类型在8中不存在）
+                ((Buffer) readBuffer).clear();
+                if (connection.channel.read(readBuffer) < 0) {
+                    throw new IOException("打印机关闭了连接");
+                }
+            }
+            if (connection.connected && key.isValid()) {
+                flush(connection);
+            }
+        } catch (IOException e) {
+            fail(connection, e, true);
+        }
+    }
+
+    private void flush(Connection connection) throws IOException {
+        PendingWrite head;
+        while ((head = connection.queue.peek()) != null) {
+            if (connection.channel.write(head.buffer) > 0) {
+                connection.lastActivity = System.currentTimeMillis();
+            }
+            if (head.buffer.hasRemaining()) {
+                // socket缓冲区已满，等待可写
+                connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            connection.queue.poll();
+            connection.completedWrites++;
+            head.future.complete(null);
+        }
+        connection.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void checkTimeouts(long now) {
+        for (Connection connection : new ArrayList<>(connections.values())) {
+            long idle = now - connection.lastActivity;
+            if (!connection.connected) {
+                if (idle > properties.getConnectTimeout()) {
+                    fail(connection, new TimeoutException("连接网络打印机超时: " + connection.address), false);
+                }
+            } else if (!connection.queue.isEmpty()) {
+                if (idle > properties.getWriteTimeout()) {
+                    fail(connection, new TimeoutException("写入网络打印机超时: " + connection.printerName), false);
+                }
+            } else if (idle > properties.getIdleTimeout()) {
+                log.debug("关闭空闲的网络打印机连接: {}", connection.printerName);
+                close(connection);
+            }
+        }
+    }
+
+    /**
+     * 断开连接；复用的连接上还没写出字节的作业重连重发一次，其余作业失败
+     */
+    private void fail(Connection connection, Exception cause, boolean retryable) {
+        close(connection);
+        List<PendingWrite> retry = new ArrayList<>();
+        for (PendingWrite write : connection.queue) {
+            if (retryable && connection.completedWrites > 0 && !write.retried && write.buffer.position() == 0) {
+                write.retried = true;
+                retry.add(write);
+            } else {
+                write.future.completeExceptionally(cause);
+            }
+        }
+        connection.queue.clear();
+        if (retry.isEmpty()) {
+            log.warn("网络打印机连接失败: {}, {}", connection.printerName, cause.getMessage());
+            return;
+        }
+        log.info("网络打印机连接已断开, 重连后重发{}个作业: {}", retry.size(), connection.printerName);
+        for (PendingWrite write : retry) {
+            enqueue(connection.printerName, connection.address, write);
+        }
+    }
+
+    private void close(Connection connection) {
+        connections.remove(connection.printerName, connection);
+        if (connection.key != null) {
+            connection.key.cancel();
+        }
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            log.debug("关闭网络打印机连接失败: {}", connection.printerName, e);
+        }
+    }
+
+    private static final class Connection {
+        private final String printerName;
+        private final InetSocketAddress address;
+        private final SocketChannel channel;
+        private final Deque<PendingWrite> queue = new ArrayDeque<>();
+        private SelectionKey key;
+        private boolean connected;
+        private long lastActivity;
+        private long completedWrites;
+
+        private Connection(String printerName, InetSocketAddress address, SocketChannel channel) {
+            this.printerName = printerName;
+            this.address = address;
+            this.channel = channel;
+        }
+    }
+
+    private static final class PendingWrite {
+        private final ByteBuffer buffer;
+        private final CompletableFuture<Void> future;
+        private boolean retried;
+
+        private PendingWrite(ByteBuffer buffer, CompletableFuture<Void> future) {
+            this.buffer = buffer;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.print.component;
+
+import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskType;
+import org.example.print.template.RenderedContent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 渲染结果缓存
+ * 任务每次打印（包括失败重试、重打）都要重新解析JSON、套用模板并编码，
+ * 这里按 taskId + 任务类型 + 每行点数 + 内容哈希 缓存渲染结果，按总字节数淘汰最久未用的项。
+ * 内容哈希保证任务内容被修改后不会打印旧的结果；每行点数保证任务改投不同纸宽的打印机时重新渲染。
+ * 小票在{{now}}处分段缓存，打印时间在取出后才插入，不会沿用第一次渲染的时间
+ */
+@Component
+public class RenderedBytesCache {
+
+    private final boolean enabled;
+    private final BoundedCache<RenderedContent> cache;
+
+    @Autowired
+    public RenderedBytesCache(
+            @Value("${print.render-cache.enabled:true}") boolean enabled,
+            @Value("${print.render-cache.size:8}") long sizeMegabytes) {
+        this.enabled = enabled;
+        this.cache = new BoundedCache<>(sizeMegabytes * 1024 * 1024, RenderedContent::size);
+    }
+
+    /**
+     * 未缓存或已禁用时返回null
+     */
+    public RenderedContent get(PrintTask task, int dotsPerLine) {
+        return enabled ? cache.get(keyOf(task, dotsPerLine)) : null;
+    }
+
+    public void put(PrintTask task, int dotsPerLine, RenderedContent content) {
+        if (enabled) {
+            cache.put(keyOf(task, dotsPerLine), content);
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = cache.status();
+        status.put("enabled", enabled);
+        return status;
+    }
+
+    private static String keyOf(PrintTask task, int dotsPerLine) {
+        PrintTaskType type = task.getType() == null ? PrintTaskType.RECEIPT : task.getType();
+        String content = task.getContent() == null ? "" : task.getContent();
+        return task.getTaskId() + '#' + type + '#' + dotsPerLine + '#'
+                + Long.toHexString(PrintTaskDeduplicator.hash64(content));
+    }
+}
@@ -0,0 +1,348 @@
+package org.example.print.component;
+
+import org.example.print.bean.PrintTask;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 无锁有界环形缓冲队列（多生产者多消费者）
+ * 槽位数组在创建时一次性分配，入队不再为每个任务分配链表节点；
+ * 每个槽位带序号，生产者和消费者各自通过CAS推进位置，快速路径上没有锁。
+ * 队列为空或已满时按等待策略等待。
+ * 从中间删除任务时把槽位换成墓碑，出队时跳过墓碑，槽位仍按顺序释放；墓碑被跳过之前仍计入size。
+ * 注意：本队列严格先进先出，不支持任务优先级
+ */
+public class RingBufferTaskQueue extends AbstractQueue<PrintTask> implements BlockingQueue<PrintTask> {
+
+    /**
+     * 等待策略
+     */
+    public enum WaitStrategy {
+        // 锁+条件变量，生产者发布后唤醒，空闲时线程挂起不占CPU，唤醒延迟最高
+        BLOCKING,
+        // 自旋后让出CPU，再短暂休眠，延迟与CPU占用折中
+        SLEEPING,
+        // 自旋后让出CPU，延迟低，空闲时仍占用CPU
+        YIELDING,
+        // 纯自旋，延迟最低；每个等待线程（每台打印机一个工作线程）一直占满一个核心，打印机多时会耗尽CPU，
+        // 只在打印机数远少于核心数的压测中使用，必须显式允许
+        BUSY_SPIN;
+
+        public static WaitStrategy parse(String value) {
+            return parse(value, false);
+        }
+
+        /**
+         * @param allowBusySpin 是否允许BUSY_SPIN，未允许时配置为busy-spin抛出IllegalArgumentException
+         */
+        public static WaitStrategy parse(String value, boolean allowBusySpin) {
+            if (value == null || value.trim().isEmpty()) {
+                return BLOCKING;
+            }
+            WaitStrategy strategy = valueOf(value.trim().toUpperCase().replace('-', '_'));
+            if (strategy == BUSY_SPIN && !allowBusySpin) {
+                throw new IllegalArgumentException(
+                        "busy-spin每台打印机占满一个CPU核心，需同时设置print.queue.allow-busy-spin=true");
+            }
+            return strategy;
+        }
+    }
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    // 已删除任务的占位，只比较引用
+    private static final PrintTask TOMBSTONE = new PrintTask();
+
+    private final int mask;
+    private final AtomicReferenceArray<PrintTask> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private final AtomicLong dequeuePosition = new AtomicLong();
+    private final WaitStrategy waitStrategy;
+    private final Waiter notEmpty = new Waiter();
+    private final Waiter notFull = new Waiter();
+
+    /**
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public RingBufferTaskQueue(int capacity, WaitStrategy waitStrategy) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.waitStrategy = waitStrategy;
+    }
+
+    @Override
+    public boolean offer(PrintTask task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        while (true) {
+            long position = enqueuePosition.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    buffer.set(index, task);
+                    // 发布槽位，消费者看到序号变化后才能读取
+                    sequences.set(index, position + 1);
+                    notEmpty.signal();
+                    return true;
+                }
+            } else if (diff < 0) {
+                // 槽位尚未被消费，队列已满
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public PrintTask poll() {
+        while (true) {
+            long position = dequeuePosition.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (dequeuePosition.compareAndSet(position, position + 1)) {
+                    // 与remove竞争同一个任务，getAndSet保证只有一方拿到
+                    PrintTask task = buffer.getAndSet(index, null);
+                    // 释放槽位给下一轮生产者
+                    sequences.set(index, position + mask + 1);
+                    notFull.signal();
+                    if (task != TOMBSTONE) {
+                        return task;
+                    }
+                }
+            } else if (diff < 0) {
+                // 槽位尚未发布，队列为空
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(PrintTask task, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int counter = 0;
+        while (!offer(task)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            counter = notFull.idle(counter, this::hasCapacity, remaining);
+        }
+        return true;
+    }
+
+    @Override
+    public void put(PrintTask task) throws InterruptedException {
+        int counter = 0;
+        while (!offer(task)) {
+            counter = notFull.idle(counter, this::hasCapacity, Long.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public PrintTask poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int counter = 0;
+        PrintTask task;
+        while ((task = poll()) == null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            counter = notEmpty.idle(counter, this::hasItems, remaining);
+        }
+        return task;
+    }
+
+    @Override
+    public PrintTask take() throws InterruptedException {
+        int counter = 0;
+        PrintTask task;
+        while ((task = poll()) == null) {
+            counter = notEmpty.idle(counter, this::hasItems, Long.MAX_VALUE);
+        }
+        return task;
+    }
+
+    @Override
+    public PrintTask peek() {
+        long position = dequeuePosition.get();
+        int index = (int) (position & mask);
+        if (sequences.get(index) == position + 1) {
+            PrintTask task = buffer.get(index);
+            // 队首是墓碑时不再向后查找，下一次出队会跳过它
+            return task == TOMBSTONE ? null : task;
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        // 先读出队位置，保证结果不为负
+        long dequeued = dequeuePosition.get();
+        long enqueued = enqueuePosition.get();
+        return (int) Math.max(0, Math.min(enqueued - dequeued, mask + 1L));
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return mask + 1 - size();
+    }
+
+    @Override
+    public int drainTo(Collection<? super PrintTask> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super PrintTask> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        PrintTask task;
+        while (n < maxElements && (task = poll()) != null) {
+            c.add(task);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 删除指定任务：在已发布的槽位中查找，找到后替换为墓碑，O(队列长度)；
+     * 任务已被消费者取走时返回false
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        long end = enqueuePosition.get();
+        for (long position = dequeuePosition.get(); position < end; position++) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                // 已被消费或尚未发布
+                continue;
+            }
+            PrintTask task = buffer.get(index);
+            if (task != null && task != TOMBSTONE && o.equals(task) && buffer.compareAndSet(index, task, TOMBSTONE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 返回当前内容的快照，仅用于监控
+     */
+    @Override
+    public Iterator<PrintTask> iterator() {
+        List<PrintTask> snapshot = new ArrayList<>();
+        long end = enqueuePosition.get();
+        for (long position = dequeuePosition.get(); position < end; position++) {
+            PrintTask task = buffer.get((int) (position & mask));
+            if (task != null && task != TOMBSTONE) {
+                snapshot.add(task);
+            }
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    private boolean hasItems() {
+        return size() > 0;
+    }
+
+    private boolean hasCapacity() {
+        return size() <= mask;
+    }
+
+    /**
+     * 一侧（队列非空或队列未满）的等待与唤醒
+     */
+    private final class Waiter {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition condition = lock.newCondition();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        /**
+         * 执行一次等待，返回下一次的计数
+         */
+        int idle(int counter, BooleanSupplier ready, long remainingNanos) throws InterruptedException {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            switch (waitStrategy) {
+                case BLOCKING:
+                    // 先登记再检查：生产者发布后读到登记数才加锁唤醒，检查和挂起之间持有锁，唤醒不会丢失；
+                    // 因此一直等到超时或被唤醒，空闲时不会周期性醒来
+                    lock.lockInterruptibly();
+                    try {
+                        waiters.incrementAndGet();
+                        if (!ready.getAsBoolean()) {
+                            condition.awaitNanos(remainingNanos);
+                        }
+                    } finally {
+                        waiters.decrementAndGet();
+                        lock.unlock();
+                    }
+                    return counter;
+                case SLEEPING:
+                    if (counter < SPIN_TRIES) {
+                        return counter + 1;
+                    }
+                    if (counter < SPIN_TRIES + YIELD_TRIES) {
+                        Thread.yield();
+                        return counter + 1;
+                    }
+                    LockSupport.parkNanos(Math.min(remainingNanos, SLEEP_NANOS));
+                    return counter;
+                case YIELDING:
+                    if (counter < SPIN_TRIES) {
+                        return counter + 1;
+                    }
+                    Thread.yield();
+                    return counter;
+                case BUSY_SPIN:
+                default:
+                    return counter;
+            }
+        }
+
+        void signal() {
+            if (waitStrategy == WaitStrategy.BLOCKING && waiters.get() > 0) {
+                lock.lock();
+                try {
+                    condition.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package org.example.print.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 自适应线程池
+ * 核心线程数在[minSize, maxSize]之间随积压和排队延迟调整：
+ * 有积压且平均排队时间超过目标延迟时扩容，空闲时逐步缩容，空闲线程按keepAlive回收。
+ * 调整在提交和完成任务时顺带进行，每个间隔最多一次，不需要额外的定时线程。
+ * 只对并发度随负载变化的线程池有意义（状态通知）；每台打印机串行分发，打印线程池的并发度不超过打印机数量，
+ * 按minSize == maxSize固定大小使用，只保留拒绝策略和状态统计。
+ * 默认拒绝策略：队列已满时池内线程提交的任务直接在当前线程执行；外部线程立即收到拒绝，由调用方决定任务去向，不阻塞调用方
+ */
+@Slf4j
+public class AdaptiveThreadPoolExecutor extends ThreadPoolExecutor {
+
+    // 指数加权平均的平滑系数
+    private static final double EWMA_ALPHA = 0.2;
+
+    private static final ThreadLocal<Boolean> POOL_THREAD = new ThreadLocal<>();
+
+    private final int minSize;
+    private final String threadNamePrefix;
+    private final long targetLatencyNanos;
+    private final long adjustIntervalNanos;
+    private final AtomicLong lastAdjustNanos = new AtomicLong(System.nanoTime());
+    private final AtomicLong requeued = new AtomicLong();
+    private final AtomicLong callerRuns = new AtomicLong();
+    // 平均排队时间和执行时间(纳秒)，只用于调整和展示，不要求精确
+    private volatile double queueWaitEwma;
+    private volatile double executionEwma;
+
+    public AdaptiveThreadPoolExecutor(int minSize, int maxSize, int queueCapacity, long targetLatencyMillis,
+                                      long adjustIntervalMillis, String threadNamePrefix) {
+        this(minSize, maxSize, queueCapacity, targetLatencyMillis, adjustIntervalMillis, threadNamePrefix,
+                new RequeuePolicy());
+    }
+
+    public AdaptiveThreadPoolExecutor(int minSize, int maxSize, int queueCapacity, long targetLatencyMillis,
+                                      long adjustIntervalMillis, String threadNamePrefix,
+                                      RejectedExecutionHandler rejectedHandler) {
+        super(minSize, Math.max(minSize, maxSize), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                namedThreadFactory(threadNamePrefix),
+                rejectedHandler);
+        this.minSize = minSize;
+        this.threadNamePrefix = threadNamePrefix;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.adjustIntervalNanos = TimeUnit.MILLISECONDS.toNanos(adjustIntervalMillis);
+        allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        super.execute(new TimedTask(command));
+        adjustIfDue();
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+        POOL_THREAD.set(Boolean.TRUE);
+        if (runnable instanceof TimedTask) {
+            TimedTask task = (TimedTask) runnable;
+            task.startNanos = System.nanoTime();
+            queueWaitEwma = ewma(queueWaitEwma, task.startNanos - task.submitNanos);
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable runnable, Throwable t) {
+        if (runnable instanceof TimedTask) {
+            executionEwma = ewma(executionEwma, System.nanoTime() - ((TimedTask) runnable).startNanos);
+        }
+        adjustIfDue();
+    }
+
+    /**
+     * 按积压和排队延迟调整核心线程数，每个间隔最多执行一次
+     */
+    void adjustIfDue() {
+        long now = System.nanoTime();
+        long last = lastAdjustNanos.get();
+        if (now - last < adjustIntervalNanos || !lastAdjustNanos.compareAndSet(last, now)) {
+            return;
+        }
+        int core = getCorePoolSize();
+        int backlog = getQueue().size();
+        int target = core;
+        // 线程全部阻塞时没有任务开始执行，平均值不再更新，因此同时看队首任务已等待的时间
+        double queueWait = Math.max(queueWaitEwma, headWaitNanos(now));
+        if (backlog > 0 && queueWait > targetLatencyNanos) {
+            // 按积压扩容，每次最多翻倍
+            target = Math.min(getMaximumPoolSize(), Math.min(core * 2, core + backlog));
+        } else if (backlog == 0 && getActiveCount() < core && queueWaitEwma < targetLatencyNanos / 2.0) {
+            // 没有积压且有核心线程空闲，每次缩一个
+            target = Math.max(minSize, core - 1);
+        }
+        if (target != core) {
+            setCorePoolSize(target);
+            log.info("线程池{}核心线程数调整: {} -> {}, 积压: {}, 平均排队: {}ms",
+                    threadNamePrefix, core, target, backlog, TimeUnit.NANOSECONDS.toMillis((long) queueWaitEwma));
+        }
+    }
+
+    private long headWaitNanos(long now) {
+        Runnable head = getQueue().peek();
+        return head instanceof TimedTask ? now - ((TimedTask) head).submitNanos : 0;
+    }
+
+    /**
+     * 当前规模和饱和度
+     */
+    public Map<String, Object> getStatus() {
+        int active = getActiveCount();
+        int queued = getQueue().size();
+        int queueCapacity = queued + getQueue().remainingCapacity();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("mode", minSize == getMaximumPoolSize() ? "fixed" : "adaptive");
+        status.put("coreSize", getCorePoolSize());
+        status.put("poolSize", getPoolSize());
+        status.put("minSize", minSize);
+        status.put("maxSize", getMaximumPoolSize());
+        status.put("activeCount", active);
+        status.put("queueSize", queued);
+        status.put("queueCapacity", queueCapacity);
+        // 饱和度：活跃线程占最大线程数的比例，以及队列占用比例
+        status.put("threadSaturation", (double) active / getMaximumPoolSize());
+        status.put("queueSaturation", queueCapacity == 0 ? 0.0 : (double) queued / queueCapacity);
+        status.put("avgQueueWaitMs", TimeUnit.NANOSECONDS.toMillis((long) queueWaitEwma));
+        status.put("avgExecutionMs", TimeUnit.NANOSECONDS.toMillis((long) executionEwma));
+        status.put("requeued", requeued.get());
+        status.put("callerRuns", callerRuns.get());
+        status.put("completedTasks", getCompletedTaskCount());
+        return status;
+    }
+
+    private static double ewma(double current, long sample) {
+        return current == 0 ? sample : current + EWMA_ALPHA * (sample - current);
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> new Thread(runnable, prefix + counter.incrementAndGet());
+    }
+
+    private static final class TimedTask implements Runnable {
+        private final Runnable delegate;
+        private final long submitNanos = System.nanoTime();
+        private long startNanos;
+
+        private TimedTask(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+    }
+
+    /**
+     * 队列已满时的处理：
+     * 池内线程提交的任务直接在当前线程执行，避免等待自己所在的线程池而死锁；
+     * 外部线程（打印机工作线程）只再尝试一次不等待的入队（线程池判定已满后队列可能刚腾出空间），
+     * 仍然失败就立即拒绝，由调用方把任务放回打印队列，不阻塞调用方
+     */
+    static final class RequeuePolicy implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("打印线程池已关闭");
+            }
+            AdaptiveThreadPoolExecutor pool = (AdaptiveThreadPoolExecutor) executor;
+            if (Boolean.TRUE.equals(POOL_THREAD.get())) {
+                pool.callerRuns.incrementAndGet();
+                runnable.run();
+                return;
+            }
+            if (executor.getQueue().offer(runnable)) {
+                pool.requeued.incrementAndGet();
+                // 所有线程可能在入队期间退出，保证至少有一个线程处理队列
+                if (executor.getPoolSize() == 0) {
+                    executor.prestartCoreThread();
+                }
+                return;
+            }
+            throw new RejectedExecutionException("打印线程池已满");
+        }
+    }
+}
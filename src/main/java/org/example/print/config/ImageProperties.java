@@ -0,0 +1,25 @@
+package org.example.print.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 小票图片配置
+ * images下为 图片名称 -> 资源位置（classpath:或file:），模板和订单数据可以按名称引用这些图片；
+ * 图片缩放到目标打印机的纸宽，见print.paper
+ */
+@Component
+@ConfigurationProperties(prefix = "print.image")
+@Data
+public class ImageProperties {
+
+    // 抖动后位图的缓存上限(MB)
+    private long cacheSize = 4;
+    // 启动时预先转换images中的图片，首张小票不再等待抖动
+    private boolean warmUp = true;
+    private Map<String, String> images = new LinkedHashMap<>();
+}
@@ -0,0 +1,46 @@
+package org.example.print.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 网络打印机配置
+ * printers下为 打印机名称 -> host[:port]，端口默认9100，这些打印机直接通过TCP发送ESC/POS数据，不经过系统后台打印程序
+ */
+@Component
+@ConfigurationProperties(prefix = "print.network")
+@Data
+public class NetworkPrinterProperties {
+
+    private static final int DEFAULT_PORT = 9100;
+
+    private Map<String, String> printers = new LinkedHashMap<>();
+    // 建立连接的超时(毫秒)
+    private long connectTimeout = 3000;
+    // 写入无进展的超时(毫秒)
+    private long writeTimeout = 5000;
+    // 空闲连接保持时间(毫秒)，很多打印机同一时间只接受一个连接，不宜长期占用
+    private long idleTimeout = 30000;
+
+    /**
+     * 网络打印机的地址，不是网络打印机时返回null
+     */
+    public InetSocketAddress addressOf(String printerName) {
+        String value = printerName == null ? null : printers.get(printerName);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        value = value.trim();
+        int colon = value.lastIndexOf(':');
+        if (colon > 0 && value.indexOf(':') == colon) {
+            return InetSocketAddress.createUnresolved(value.substring(0, colon),
+                    Integer.parseInt(value.substring(colon + 1)));
+        }
+        return InetSocketAddress.createUnresolved(value, DEFAULT_PORT);
+    }
+}
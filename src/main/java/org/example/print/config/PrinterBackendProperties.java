@@ -0,0 +1,38 @@
+package org.example.print.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 打印后端配置
+ * type为system时使用真实打印机；emulated和null用于在没有打印机的机器上压测整条流水线
+ */
+@Component
+@ConfigurationProperties(prefix = "print.backend")
+@Data
+public class PrinterBackendProperties {
+
+    // system / emulated / null
+    private String type = "system";
+    private Emulated emulated = new Emulated();
+
+    /**
+     * 模拟打印机参数
+     */
+    @Data
+    public static class Emulated {
+        // 打印速度(字节/秒)，0表示不按数据量耗时
+        private long bytesPerSecond = 4096;
+        // 每个作业的固定耗时(毫秒)，模拟进纸和切纸
+        private long latency = 50;
+        // 在固定耗时上随机增加的最大毫秒数
+        private long jitter = 20;
+        // 作业失败的概率
+        private double failureRate = 0;
+        // 每个作业触发缺纸的概率
+        private double paperOutRate = 0;
+        // 缺纸持续时间(毫秒)，期间所有作业失败、状态为不可用
+        private long paperOutDuration = 30000;
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.print.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 打印机组配置
+ * print.groups下每一项为 组名 -> 成员打印机名称列表
+ */
+@Component
+@ConfigurationProperties(prefix = "print")
+@Data
+public class PrinterGroupProperties {
+
+    private Map<String, List<String>> groups = new LinkedHashMap<>();
+}
@@ -0,0 +1,31 @@
+package org.example.print.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 打印机纸宽配置
+ * 全局每行点数作用于每台打印机，printers下可按打印机名称单独覆盖；58mm纸为384，80mm纸为576。
+ * PDF页面和小票图片按目标打印机的点数光栅化，58mm和80mm打印机混用时各自按自己的宽度渲染
+ */
+@Component
+@ConfigurationProperties(prefix = "print.paper")
+@Data
+public class PrinterPaperProperties {
+
+    // 每行点数
+    private int dotsPerLine = 384;
+    private Map<String, Integer> printers = new LinkedHashMap<>();
+
+    /**
+     * 打印机的每行点数，没有单独配置时使用全局值
+     */
+    public int dotsPerLineOf(String printerName) {
+        Integer dots = printerName == null ? null : printers.get(printerName);
+        return dots != null && dots > 0 ? dots : dotsPerLine;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.print.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 打印机限速配置
+ * 全局速率作用于每台打印机，printers下可按打印机名称单独覆盖；速率为0表示不限
+ */
+@Component
+@ConfigurationProperties(prefix = "print.rate-limit")
+@Data
+public class PrinterRateLimitProperties {
+
+    // 每秒提交的作业(小票)数
+    private double jobsPerSecond;
+    // 每秒提交的字节数
+    private long bytesPerSecond;
+    // 允许的突发时长(秒)，桶容量 = 速率 * burst
+    private double burst = 1;
+    private Map<String, Limit> printers = new LinkedHashMap<>();
+
+    @Data
+    public static class Limit {
+        private Double jobsPerSecond;
+        private Long bytesPerSecond;
+    }
+}
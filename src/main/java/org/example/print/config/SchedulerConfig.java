@@ -14,7 +14,7 @@ public class SchedulerConfig {
 
     /**
      * 创建ScheduledExecutorService实例
-     * 用于执行定时任务，包括WebSocket心跳
+     * 用于执行定时任务，包括WebSocket心跳、打印作业完成超时和STOMP重连
      */
     @Bean
     public ScheduledExecutorService scheduledExecutor() {
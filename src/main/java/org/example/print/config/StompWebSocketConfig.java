@@ -1,21 +1,30 @@
 package org.example.print.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+import java.util.concurrent.ThreadFactory;
+
 /**
  * STOMP WebSocket 配置
  * 用于支持STOMP协议通信，主要为新版Electron客户端提供服务
- * 与原有的WebSocketConfig并存，提供双通道支持
+ * 与原有的WebSocketConfig并存，提供双通道支持。
+ * print.executor.mode=virtual 时出站通道（向客户端推送任务状态）使用虚拟线程
  */
 @Configuration
 @EnableWebSocketMessageBroker
 public class StompWebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Value("${print.executor.mode:platform}")
+    private String executorMode;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // 配置消息代理，广播式应用通常以/topic为前缀
@@ -40,4 +49,22 @@ public class StompWebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setSendTimeLimit(20 * 1000)    // 20 seconds
                 .setSendBufferSizeLimit(3 * 1024 * 1024); // 3MB
     }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (!"virtual".equalsIgnoreCase(executorMode)) {
+            return;
+        }
+        ThreadFactory factory = VirtualThreads.factory("stomp-outbound-");
+        if (factory == null) {
+            return;
+        }
+        // 写WebSocket会阻塞在慢客户端上，虚拟线程不限数量，一个慢客户端不会占满出站线程
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadFactory(factory);
+        executor.setCorePoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        executor.setMaxPoolSize(Integer.MAX_VALUE);
+        executor.setQueueCapacity(0);
+        registration.taskExecutor(executor);
+    }
 }
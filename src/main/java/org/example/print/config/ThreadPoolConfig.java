@@ -1,30 +1,124 @@
 package org.example.print.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 
 
 /**
  * 线程池配置类
+ * print.executor.mode=virtual 且运行在JDK 21及以上时使用虚拟线程，
+ * 打印任务和阻塞I/O（通知远程服务器、提交打印作业）不再占用固定数量的平台线程，
+ * 打印机工作线程和STOMP出站通道同样使用虚拟线程；
+ * 否则回退到下面的平台线程池。
+ * 每台打印机只有一个工作线程串行分发，printTaskExecutor同时执行的批次不超过打印机数量，
+ * 按max-size固定大小，伸缩没有收益；
+ * 平台线程模式下printNotifyExecutor为自适应线程池，通知请求随任务量并发，按积压和排队延迟伸缩
  */
 @Configuration
+@Slf4j
 public class ThreadPoolConfig {
+
+    @Value("${print.executor.mode:platform}")
+    private String executorMode;
+
+    @Value("${print.executor.max-size:8}")
+    private int maxSize;
+
+    @Value("${print.executor.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${print.notify-executor.min-size:2}")
+    private int notifyMinSize;
+
+    @Value("${print.notify-executor.max-size:16}")
+    private int notifyMaxSize;
+
+    @Value("${print.notify-executor.queue-capacity:500}")
+    private int notifyQueueCapacity;
+
+    @Value("${print.notify-executor.target-latency:200}")
+    private long notifyTargetLatencyMillis;
+
+    @Value("${print.notify-executor.adjust-interval:1000}")
+    private long notifyAdjustIntervalMillis;
+
     @Bean(name = "printTaskExecutor")
     public Executor taskExecutor() {
+        ExecutorService virtual = virtualExecutor("print-task-");
+        if (virtual != null) {
+            return virtual;
+        }
+        // 核心线程数与最大线程数相同，不伸缩；线程空闲60秒后回收
+        return new AdaptiveThreadPoolExecutor(maxSize, maxSize, queueCapacity, 0, 1000, "print-task-");
+    }
+
+    /**
+     * 阻塞I/O线程池：提交打印作业到后台打印程序、刷新打印机列表
+     */
+    @Bean(name = "printIoExecutor")
+    public Executor ioExecutor() {
+        ExecutorService virtual = virtualExecutor("print-io-");
+        if (virtual != null) {
+            return virtual;
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        // 核心线程数
         executor.setCorePoolSize(2);
-        // 最大线程数
-        executor.setMaxPoolSize(4);
-        // 队列容量
-        executor.setQueueCapacity(50);
-        // 线程名称前缀
-        executor.setThreadNamePrefix("print-task-");
-        // 初始化
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("print-io-");
         executor.initialize();
         return executor;
     }
+
+    /**
+     * 通知线程池：向远程服务器回报任务状态，HTTP请求不在打印线程中同步等待；
+     * 按积压和排队延迟在min-size与max-size之间伸缩，队列满时由提交通知的线程自己发送，不丢弃状态更新
+     */
+    @Bean(name = "printNotifyExecutor")
+    public Executor notifyExecutor() {
+        ExecutorService virtual = virtualExecutor("print-notify-");
+        if (virtual != null) {
+            return virtual;
+        }
+        return new AdaptiveThreadPoolExecutor(notifyMinSize, notifyMaxSize, notifyQueueCapacity,
+                notifyTargetLatencyMillis, notifyAdjustIntervalMillis, "print-notify-",
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * PDF渲染线程池：纯计算，线程数与CPU核数相同，不使用虚拟线程；
+     * 队列满时由提交渲染的线程自己渲染
+     */
+    @Bean(name = "pdfRenderExecutor")
+    public Executor pdfRenderExecutor() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(processors);
+        executor.setMaxPoolSize(processors);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("pdf-render-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    private ExecutorService virtualExecutor(String prefix) {
+        if (!"virtual".equalsIgnoreCase(executorMode)) {
+            return null;
+        }
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor(prefix);
+        if (executor == null) {
+            log.warn("当前JDK({})不支持虚拟线程, {}回退到平台线程池", System.getProperty("java.version"), prefix);
+        } else {
+            log.info("{}使用虚拟线程", prefix);
+        }
+        return executor;
+    }
 }
@@ -5,9 +5,16 @@ import org.example.print.bean.PrintTask;
 import org.example.print.bean.PrintTaskStatus;
 import org.example.print.component.PrintMetrics;
 import org.example.print.component.PrintQueueManager;
+import org.example.print.component.PrintTaskIndex;
 import org.example.print.component.PrintTaskPersistence;
+import org.example.print.component.PrinterHealthMonitor;
+import org.example.print.component.PrinterRegistry;
+import org.example.print.config.AdaptiveThreadPoolExecutor;
 import org.example.print.service.UnifiedPrintService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,6 +22,7 @@ import javax.print.PrintService;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
@@ -30,17 +38,26 @@ public class PrintApiController {
     private final PrintTaskPersistence printTaskPersistence;
     private final UnifiedPrintService printService;
     private final PrintMetrics printMetrics;
+    private final Executor printTaskExecutor;
+    private final PrinterRegistry printerRegistry;
+    private final PrinterHealthMonitor printerHealthMonitor;
 
     @Autowired
     public PrintApiController(
             PrintQueueManager printQueueManager,
             PrintTaskPersistence printTaskPersistence,
             UnifiedPrintService printService,
-            PrintMetrics printMetrics) {
+            PrintMetrics printMetrics,
+            @Qualifier("printTaskExecutor") Executor printTaskExecutor,
+            PrinterRegistry printerRegistry,
+            PrinterHealthMonitor printerHealthMonitor) {
         this.printQueueManager = printQueueManager;
         this.printTaskPersistence = printTaskPersistence;
         this.printService = printService;
         this.printMetrics = printMetrics;
+        this.printTaskExecutor = printTaskExecutor;
+        this.printerRegistry = printerRegistry;
+        this.printerHealthMonitor = printerHealthMonitor;
     }
 
     /**
@@ -59,53 +76,132 @@ public class PrintApiController {
     public ResponseEntity<Map<String, Object>> getQueueStatus() {
         Map<String, Object> status = new HashMap<>();
         status.put("queueSize", printQueueManager.getQueueSize());
+        status.put("printerQueues", printQueueManager.getQueueSizeByPrinter());
+        status.put("retryPending", printQueueManager.getRetryPendingCount());
+        status.put("throttledMillis", printMetrics.getThrottledMillisByPrinter());
+        status.put("spoolToDone", printMetrics.getSpoolToDoneByPrinter());
         status.put("successRate", printMetrics.getSuccessRate());
         status.put("printerReady", printService.isPrinterReady(null));
         return ResponseEntity.ok(status);
     }
 
+    /**
+     * 获取打印机组成员的负载和健康状态
+     */
+    @GetMapping("/printers/groups")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> getPrinterGroups() {
+        return ResponseEntity.ok(printQueueManager.getPrinterGroupStatus());
+    }
+
     /**
      * 获取可用打印机列表
      */
     @GetMapping("/printers")
     public ResponseEntity<List<Map<String, String>>> getPrinters() {
-        List<PrintService> printers = printService.getAllPrinters();
+        return ResponseEntity.ok(toPrinterList(printService.getAllPrinters()));
+    }
 
-        List<Map<String, String>> printerList = printers.stream()
+    /**
+     * 重新查询打印机，例如刚接入新打印机后
+     */
+    @PostMapping("/printers/refresh")
+    public ResponseEntity<List<Map<String, String>>> refreshPrinters() {
+        return ResponseEntity.ok(toPrinterList(printerRegistry.refresh()));
+    }
+
+    private static List<Map<String, String>> toPrinterList(List<PrintService> printers) {
+        return printers.stream()
                 .map(printer -> {
                     Map<String, String> printerInfo = new HashMap<>();
                     printerInfo.put("name", printer.getName());
                     return printerInfo;
                 })
                 .collect(Collectors.toList());
-
-        return ResponseEntity.ok(printerList);
     }
 
     /**
      * 添加打印任务
      */
     @PostMapping("/tasks")
-    public ResponseEntity<PrintTask> addPrintTask(@RequestBody PrintTask task) {
+    public ResponseEntity<?> addPrintTask(
+            @RequestBody PrintTask task,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
             log.info("收到打印请求: {}", task);
-            printQueueManager.addPrintTask(task);
+            if (!printQueueManager.addPrintTask(task, idempotencyKey)) {
+                // 重复提交，不再入队
+                return ResponseEntity.ok().header("Idempotent-Replayed", "true").body(task);
+            }
             return ResponseEntity.ok(task);
+        } catch (PrintQueueManager.PrintQueueFullException e) {
+            return tooManyRequests(e);
         } catch (Exception e) {
             log.error("添加打印任务失败", e);
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * 重打已完成的任务，可通过printerName改发到其他打印机
+     */
+    @PostMapping("/tasks/{taskId}/reprint")
+    public ResponseEntity<?> reprintTask(
+            @PathVariable String taskId,
+            @RequestBody(required = false) Map<String, String> params) {
+        log.info("请求重打任务: {}", taskId);
+        Map<String, Object> responseMap = new HashMap<>();
+        responseMap.put("taskId", taskId);
+        try {
+            PrintTask task = printQueueManager.reprintTask(taskId, params != null ? params.get("printerName") : null);
+            if (task == null) {
+                responseMap.put("success", false);
+                responseMap.put("message", "已完成的任务中找不到该任务");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseMap);
+            }
+            return ResponseEntity.ok(task);
+        } catch (IllegalStateException e) {
+            responseMap.put("success", false);
+            responseMap.put("message", "任务尚未结束，无法重打");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(responseMap);
+        } catch (PrintQueueManager.PrintQueueFullException e) {
+            return tooManyRequests(e);
+        } catch (PrintQueueManager.PrintTaskException e) {
+            // 如打印机组没有可用的打印机
+            responseMap.put("success", false);
+            responseMap.put("message", e.getMessage());
+            return ResponseEntity.unprocessableEntity().body(responseMap);
+        }
+    }
+
     /**
      * 取消打印任务
      */
     @DeleteMapping("/tasks/{taskId}")
     public ResponseEntity<?> cancelTask(@PathVariable String taskId) {
-        // 这里需要实现取消功能
-        // 实际应用中可能需要在PrintQueueManager中添加取消方法
         log.info("请求取消任务: {}", taskId);
-        return ResponseEntity.ok().build();
+        PrintTaskIndex.CancelResult result = printQueueManager.cancelTask(taskId);
+
+        Map<String, Object> responseMap = new HashMap<>();
+        responseMap.put("taskId", taskId);
+        responseMap.put("status", result.name());
+        switch (result) {
+            case CANCELLED:
+                responseMap.put("success", true);
+                responseMap.put("message", "任务已取消");
+                return ResponseEntity.ok(responseMap);
+            case PRINTING:
+                responseMap.put("success", false);
+                responseMap.put("message", "任务正在打印，无法取消");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(responseMap);
+            case COMPLETED:
+                responseMap.put("success", false);
+                responseMap.put("message", "任务已打印完成，无法取消");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(responseMap);
+            default:
+                responseMap.put("success", false);
+                responseMap.put("message", "任务不存在或已结束");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseMap);
+        }
     }
 
     /**
@@ -122,10 +218,35 @@ public class PrintApiController {
         // 获取当前默认打印机
         PrintService printer = printService.getPrinterByName(null);
         status.put("currentPrinter", printer != null ? printer.getName() : "未设置");
+        status.put("backend", printService.getBackendType());
+        status.put("renderCache", printService.getRenderCacheStatus());
+        status.put("pdfCache", printService.getPdfCacheStatus());
+        status.put("imageCache", printService.getImageCacheStatus());
+        status.put("executor", executorStatus());
+        status.put("circuitBreakers", printQueueManager.getCircuitBreakerStatus());
+        status.put("printerHealth", printerHealthMonitor.getSnapshot());
 
         return ResponseEntity.ok(status);
     }
 
+    /**
+     * 获取打印线程池的规模和饱和度
+     */
+    @GetMapping("/executor/status")
+    public ResponseEntity<Map<String, Object>> getExecutorStatus() {
+        return ResponseEntity.ok(executorStatus());
+    }
+
+    private Map<String, Object> executorStatus() {
+        if (printTaskExecutor instanceof AdaptiveThreadPoolExecutor) {
+            return ((AdaptiveThreadPoolExecutor) printTaskExecutor).getStatus();
+        }
+        // 虚拟线程模式下每个任务一个线程，没有池的概念
+        Map<String, Object> status = new HashMap<>();
+        status.put("mode", "virtual");
+        return status;
+    }
+
     /**
      * 测试打印接口
      */
@@ -153,6 +274,8 @@ public class PrintApiController {
             responseMap.put("message", "测试打印任务已添加");
             responseMap.put("taskId", task.getTaskId());
             return ResponseEntity.ok().body(responseMap);
+        } catch (PrintQueueManager.PrintQueueFullException e) {
+            return tooManyRequests(e);
         } catch (Exception e) {
             log.error("测试打印失败", e);
             Map<String, Object> responseMap = new HashMap<>();
@@ -192,4 +315,17 @@ public class PrintApiController {
             return ResponseEntity.badRequest().body(responseMap);
         }
     }
+
+    /**
+     * 队列繁忙时返回429，并通过Retry-After告知客户端退避时间
+     */
+    private ResponseEntity<Map<String, Object>> tooManyRequests(PrintQueueManager.PrintQueueFullException e) {
+        Map<String, Object> responseMap = new HashMap<>();
+        responseMap.put("success", false);
+        responseMap.put("message", e.getMessage());
+        responseMap.put("retryAfter", e.getRetryAfterSeconds());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(responseMap);
+    }
 }
\ No newline at end of file
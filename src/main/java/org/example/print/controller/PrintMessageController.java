@@ -2,7 +2,9 @@ package org.example.print.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskPriority;
 import org.example.print.bean.PrintTaskStatus;
+import org.example.print.bean.PrintTaskType;
 import org.example.print.component.PrintQueueManager;
 import org.example.print.service.PrintTaskNotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,8 +45,10 @@ public class PrintMessageController {
     public Map<String, Object> handlePrintRequest(Map<String, Object> printRequest) {
         String content = (String) printRequest.getOrDefault("content", "");
         String printerName = (String) printRequest.getOrDefault("printerName", null);
+        PrintTaskPriority priority = PrintTaskPriority.parse(printRequest.get("priority"));
+        PrintTaskType type = PrintTaskType.parse(printRequest.get("type"));
 
-        log.info("收到WebSocket打印请求: {}", content);
+        log.info("收到WebSocket打印请求: {}", type == PrintTaskType.PDF ? "PDF, 长度: " + content.length() : content);
 
         try {
             // 创建打印任务
@@ -55,6 +59,9 @@ public class PrintMessageController {
                     .createTime(LocalDateTime.now())
                     .retryCount(0)
                     .printerName(printerName)
+                    .priority(priority)
+                    .type(type)
+                    .copies(PrintTask.parseCopies(printRequest.get("copies")))
                     .build();
 
             // 添加到打印队列
@@ -67,6 +74,17 @@ public class PrintMessageController {
             response.put("taskId", task.getTaskId());
             return response;
 
+        } catch (PrintQueueManager.PrintQueueFullException e) {
+            log.warn("打印队列繁忙，拒绝WebSocket打印请求: {}", e.getMessage());
+
+            // 返回繁忙响应，客户端应在retryAfter秒后重试
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("type", "busy");
+            response.put("message", e.getMessage());
+            response.put("retryAfter", e.getRetryAfterSeconds());
+            return response;
+
         } catch (Exception e) {
             log.error("处理打印请求失败", e);
 
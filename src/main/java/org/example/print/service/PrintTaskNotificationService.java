@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.example.print.bean.PrintTask;
 import org.example.print.bean.PrintTaskStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -15,16 +16,25 @@ import org.springframework.web.client.RestTemplate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 打印任务通知服务
- * 负责将打印任务状态变更通知给WebSocket客户端和远程服务器
+ * 负责将打印任务状态变更通知给WebSocket客户端和远程服务器。
+ * 远程服务器的HTTP请求在printNotifyExecutor中发送（虚拟线程模式下每个请求一个虚拟线程），
+ * 调用方（打印线程、重试调度线程）不等待网络
  */
 @Service
 @Slf4j
 public class PrintTaskNotificationService {
     private final SimpMessagingTemplate messagingTemplate;
     private final RestTemplate restTemplate;
+    private final Executor notifyExecutor;
+    // 每个任务最后一个未发送完的状态更新
+    private final Map<String, CompletableFuture<Void>> remoteUpdates = new ConcurrentHashMap<>();
 
     @Value("${remote.server.url:http://localhost:9090}")
     private String serverUrl;
@@ -39,9 +49,19 @@ public class PrintTaskNotificationService {
     private String password;
 
     @Autowired
-    public PrintTaskNotificationService(SimpMessagingTemplate messagingTemplate) {
+    public PrintTaskNotificationService(
+            SimpMessagingTemplate messagingTemplate,
+            @Qualifier("printNotifyExecutor") Executor notifyExecutor) {
         this.messagingTemplate = messagingTemplate;
         this.restTemplate = new RestTemplate();
+        this.notifyExecutor = notifyExecutor;
+    }
+
+    /**
+     * 在调用线程中同步发送通知
+     */
+    public PrintTaskNotificationService(SimpMessagingTemplate messagingTemplate) {
+        this(messagingTemplate, Runnable::run);
     }
 
     /**
@@ -61,6 +81,21 @@ public class PrintTaskNotificationService {
      * 向远程服务器发送状态更新
      */
     public void notifyRemoteServer(String taskId, PrintTaskStatus status) {
+        CompletableFuture<Void> next;
+        try {
+            // 同一任务的状态更新按顺序发送，避免PRINTING晚于COMPLETED到达服务器
+            next = remoteUpdates.compute(taskId, (id, previous) -> previous == null
+                    ? CompletableFuture.runAsync(() -> sendToRemoteServer(id, status), notifyExecutor)
+                    : previous.thenRunAsync(() -> sendToRemoteServer(id, status), notifyExecutor));
+        } catch (RejectedExecutionException e) {
+            // 线程池已关闭（停机中），在当前线程发送
+            sendToRemoteServer(taskId, status);
+            return;
+        }
+        next.whenComplete((ignored, ex) -> remoteUpdates.remove(taskId, next));
+    }
+
+    private void sendToRemoteServer(String taskId, PrintTaskStatus status) {
         try {
             String url = serverUrl + "/api/print-tasks/" + taskId + "/status";
 
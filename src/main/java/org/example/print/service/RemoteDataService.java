@@ -2,7 +2,9 @@ package org.example.print.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskPriority;
 import org.example.print.bean.PrintTaskStatus;
+import org.example.print.bean.PrintTaskType;
 import org.example.print.component.PrintQueueManager;
 import org.example.print.controller.PrintMessageController;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +30,9 @@ import javax.annotation.PostConstruct;
 import java.lang.reflect.Type;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -38,9 +43,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @Slf4j
 public class RemoteDataService {
 
+    // 打印队列繁忙时推送的任务稍后重新提交，超过该次数后向服务器报告失败
+    private static final int MAX_BUSY_RESUBMITS = 10;
+
     private final PrintQueueManager printQueueManager;
     private final PrintTaskNotificationService notificationService;
     private final RestTemplate restTemplate;
+    // 重连按retryInterval延迟调度，等待期间不占用任何线程
+    private final ScheduledExecutorService reconnectScheduler;
     private StompSession stompSession;
     private final AtomicBoolean isConnected = new AtomicBoolean(false);
 
@@ -66,10 +76,12 @@ public class RemoteDataService {
     @Autowired
     public RemoteDataService(
             PrintQueueManager printQueueManager,
-            PrintTaskNotificationService notificationService) {
+            PrintTaskNotificationService notificationService,
+            ScheduledExecutorService reconnectScheduler) {
         this.printQueueManager = printQueueManager;
         this.notificationService = notificationService;
         this.restTemplate = new RestTemplate();
+        this.reconnectScheduler = reconnectScheduler;
     }
 
     @PostConstruct
@@ -158,9 +170,8 @@ public class RemoteDataService {
                                 // 转换为PrintTask对象
                                 PrintTask task = convertToPrintTask(message);
 
-                                // 添加到打印队列
-                                printQueueManager.addPrintTask(task);
-                                log.info("已从STOMP接收并添加打印任务: {}", task.getTaskId());
+                                // 添加到打印队列，轮询已拉取过的任务会被去重
+                                submitPushedTask(task, 0);
                             }
                         } catch (Exception e) {
                             log.error("处理STOMP消息失败", e);
@@ -179,6 +190,27 @@ public class RemoteDataService {
         }
     }
 
+    /**
+     * 提交推送的任务；打印队列繁忙时按Retry-After稍后重新提交，多次仍被拒绝时向服务器报告失败
+     */
+    void submitPushedTask(PrintTask task, int attempt) {
+        try {
+            if (printQueueManager.addPrintTask(task)) {
+                log.info("已从STOMP接收并添加打印任务: {}", task.getTaskId());
+            }
+        } catch (PrintQueueManager.PrintQueueFullException e) {
+            if (attempt >= MAX_BUSY_RESUBMITS) {
+                log.error("打印队列持续繁忙, 放弃推送的任务: {}", task.getTaskId());
+                updateTaskStatus(task.getTaskId(), PrintTaskStatus.FAILED);
+                return;
+            }
+            log.warn("打印队列繁忙, {}秒后重新提交推送的任务: {}", e.getRetryAfterSeconds(), task.getTaskId());
+            scheduleLater(() -> submitPushedTask(task, attempt + 1), e.getRetryAfterSeconds());
+        } catch (Exception e) {
+            log.error("添加推送的打印任务失败: {}", task.getTaskId(), e);
+        }
+    }
+
     /**
      * 将消息转换为PrintTask对象
      */
@@ -199,6 +231,9 @@ public class RemoteDataService {
                 .createTime(LocalDateTime.now())
                 .retryCount(0)
                 .printerName(printerName)
+                .priority(PrintTaskPriority.parse(message.get("priority")))
+                .type(PrintTaskType.parse(message.get("type")))
+                .copies(PrintTask.parseCopies(message.get("copies")))
                 .build();
     }
 
@@ -206,21 +241,27 @@ public class RemoteDataService {
      * 安排STOMP重连
      */
     private void scheduleReconnect() {
-        new Thread(() -> {
-            try {
-                log.info("计划在{}毫秒后重新连接STOMP", retryInterval);
-                Thread.sleep(retryInterval);
-                connectStompClient();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.error("STOMP重连线程被中断", e);
-            }
-        }).start();
+        log.info("计划在{}毫秒后重新连接STOMP", retryInterval);
+        try {
+            reconnectScheduler.schedule(this::connectStompClient, retryInterval, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 调度器已关闭，应用正在停止
+            log.warn("应用停止中, 不再重连STOMP");
+        }
+    }
+
+    // 延迟执行，调度器已关闭时放弃
+    private void scheduleLater(Runnable action, long delaySeconds) {
+        try {
+            reconnectScheduler.schedule(action, delaySeconds, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("应用停止中, 不再重新提交打印任务");
+        }
     }
 
     /**
      * 定期同步打印任务
-     * 作为WebSocket的备份机制
+     * 作为WebSocket的备份机制；打印队列繁忙而未能入队的任务不确认接收，留在服务器上，按Retry-After提前再同步一次
      */
     @Scheduled(fixedDelayString = "${remote.poll.interval:60000}")
     public void syncPrintTasks() {
@@ -230,6 +271,7 @@ public class RemoteDataService {
 
             if (!tasks.isEmpty()) {
                 log.info("从服务器获取到{}个打印任务", tasks.size());
+                int retryAfterSeconds = 0;
                 for (PrintTask task : tasks) {
                     // 确保任务状态和时间设置正确
                     task.setStatus(PrintTaskStatus.PENDING);
@@ -237,12 +279,22 @@ public class RemoteDataService {
                         task.setCreateTime(LocalDateTime.now());
                     }
 
-                    // 添加到打印队列
-                    printQueueManager.addPrintTask(task);
+                    // 添加到打印队列，STOMP已推送过的任务会被去重
+                    try {
+                        printQueueManager.addPrintTask(task);
+                    } catch (PrintQueueManager.PrintQueueFullException e) {
+                        // 只有该打印机繁忙，继续处理发往其他打印机的任务
+                        log.warn("打印队列繁忙, 任务留待下次同步: {}", task.getTaskId());
+                        retryAfterSeconds = Math.max(retryAfterSeconds, e.getRetryAfterSeconds());
+                        continue;
+                    }
 
-                    // 可选：通知服务器任务已接收
+                    // 可选：通知服务器任务已接收（重复任务也确认，避免服务器反复下发）
                     notifyTaskReceived(task.getTaskId());
                 }
+                if (retryAfterSeconds > 0) {
+                    scheduleLater(this::syncPrintTasks, retryAfterSeconds);
+                }
             }
         } catch (Exception e) {
             log.error("同步打印任务失败", e);
@@ -281,7 +333,7 @@ public class RemoteDataService {
     /**
      * 通知服务器打印任务已接收
      */
-    private void notifyTaskReceived(String taskId) {
+    void notifyTaskReceived(String taskId) {
         try {
             String url = serverUrl + "/api/print-tasks/" + taskId + "/received";
             HttpEntity<?> requestEntity = createAuthenticatedRequest();
@@ -2,34 +2,53 @@ package org.example.print.service;
 
 import com.alibaba.fastjson2.JSONObject;
 import lombok.extern.slf4j.Slf4j;
+import org.example.print.backend.PrinterBackend;
 import org.example.print.bean.PrintTask;
 import org.example.print.bean.PrintTaskStatus;
+import org.example.print.bean.PrintTaskType;
+import org.example.print.component.ImageRasterizer;
+import org.example.print.component.PdfRenderer;
 import org.example.print.component.PrintMetrics;
 import org.example.print.component.PrintTaskPersistence;
+import org.example.print.component.PrinterRateLimiter;
+import org.example.print.component.PrinterRegistry;
+import org.example.print.component.RenderedBytesCache;
+import org.example.print.config.PrinterPaperProperties;
+import org.example.print.template.ReceiptRenderer;
+import org.example.print.template.RenderedContent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.print.*;
-import javax.print.attribute.Attribute;
-import javax.print.attribute.AttributeSet;
-import javax.print.attribute.standard.PrinterState;
-import javax.print.attribute.standard.PrinterStateReason;
-import javax.print.attribute.standard.PrinterStateReasons;
-import javax.print.attribute.standard.Severity;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @Service
 @Slf4j
 public class UnifiedPrintService {
 
+    // ESC/POS 切纸指令: GS V 66 0，走纸到切刀位置后半切
+    private static final byte[] CUT_PAPER = {0x1D, 0x56, 0x42, 0x00};
+    // 没有切刀的打印机在小票之间多走几行纸，留出撕纸空间
+    private static final byte[] FEED_LINES = {0x1B, 0x64, 0x04};
+
     @Value("${print.max-retry:3}")
     private int maxRetry;
 
+    @Value("${print.max-copies:10}")
+    private int maxCopies;
+
 
     @Value("${print.printer-name}")
     private String configuredPrinterName;
@@ -40,201 +59,226 @@ public class UnifiedPrintService {
     @Autowired
     private PrintTaskPersistence printTaskPersistence;
 
-    // 获取所有打印机
-    public List<PrintService> getAllPrinters() {
-        return Arrays.asList(PrintServiceLookup.lookupPrintServices(null, null));
-    }
+    @Autowired
+    private PrinterRateLimiter rateLimiter;
 
-    // 根据名称获取打印机
-    public PrintService getPrinterByName(String printerName) {
-        // 优先使用传入的打印机名称
-        String targetPrinter = printerName;
+    @Autowired
+    private PrinterRegistry printerRegistry;
 
-        // 如果没有传入打印机名称，使用配置文件中的打印机名称
-        if (targetPrinter == null || targetPrinter.trim().isEmpty()) {
-            targetPrinter = configuredPrinterName;
-        }
+    @Autowired
+    private PrinterBackend backend;
 
-        PrintService[] services = PrintServiceLookup.lookupPrintServices(null, null);
-        if (services == null || services.length == 0) {
-            log.error("当前进程无法访问打印服务");
-            // 打印当前进程信息，帮助诊断
-            log.error("当前进程用户: " + System.getProperty("user.name"));
-            log.error("当前进程路径: " + System.getProperty("user.dir"));
-        }
+    @Autowired
+    private ReceiptRenderer receiptRenderer;
 
+    @Autowired
+    private PdfRenderer pdfRenderer;
 
-        // 如果没有指定打印机，使用配置的默认打印机
-        return services[0];
+    @Autowired
+    private RenderedBytesCache renderedBytesCache;
 
+    @Autowired
+    private ImageRasterizer imageRasterizer;
 
-        //PrintService[] services = PrintServiceLookup.lookupPrintServices(null, null);
-        //for (PrintService service : services) {
-        //    log.info("发现打印机: {}", service.getName());
-        //    if (service.getName().equals(targetPrinter)) {
-        //        log.info("使用打印机: {}", service.getName());
-        //        return service;
-        //    }
-        //}
+    @Autowired
+    private PrinterPaperProperties paperProperties;
 
-        //throw new PrinterNotAvailableException("找不到打印机: " + targetPrinter);
-    }
+    // 提交打印作业会阻塞到后台打印程序接收完数据，不占用公共ForkJoin池
+    @Autowired
+    @Qualifier("printIoExecutor")
+    private Executor printIoExecutor;
 
-    // 执行打印任务
-    public CompletableFuture<PrintResult> executePrint(PrintTask task) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                if (!isPrinterReady(task.getPrinterName())) {
-                    throw new PrinterNotAvailableException("打印机未就绪: " + task.getPrinterName());
-                }
+    // 获取所有打印机
+    public List<PrintService> getAllPrinters() {
+        return printerRegistry.getAll();
+    }
 
-                PrintService printService = getPrinterByName(task.getPrinterName());
-                if (printService == null) {
-                    throw new PrinterNotAvailableException("找不到可用的打印机");
-                }
+    // 根据名称获取打印机，只读注册表缓存，不直接查询PrintServiceLookup
+    public PrintService getPrinterByName(String printerName) {
+        // 没有传入打印机名称时使用配置文件中的打印机名称，找不到时回退到第一台打印机
+        return printerRegistry.resolve(printerName, configuredPrinterName);
+    }
 
-                // 解析任务内容
-                JSONObject printData = JSONObject.parseObject(task.getContent());
-                String formattedContent = formatPrintContent(printData);
+    // 当前使用的打印后端类型
+    public String getBackendType() {
+        return backend.getType();
+    }
 
+    // PDF页面渲染缓存的命中情况
+    public Map<String, Object> getPdfCacheStatus() {
+        return pdfRenderer.getCacheStatus();
+    }
 
-                // 输出打印任务详情
-                log.info("打印任务信息:");
-                log.info("任务ID: {}", task.getTaskId());
-                log.info("打印机: {}", printService.getName());
-                log.info("打印内容长度: {}", task.getContent().length());
+    // 任务渲染结果缓存的命中情况
+    public Map<String, Object> getRenderCacheStatus() {
+        return renderedBytesCache.getStatus();
+    }
 
-                // 创建打印作业
-                DocPrintJob job = printService.createPrintJob();
-                Doc doc = new SimpleDoc(formattedContent.getBytes("GBK"),
-                        DocFlavor.BYTE_ARRAY.AUTOSENSE,
-                        null);
+    // 小票图片位图缓存的命中情况
+    public Map<String, Object> getImageCacheStatus() {
+        return imageRasterizer.getCacheStatus();
+    }
 
-                // 执行打印
-                job.print(doc, null);
+    // 执行打印任务
+    public CompletableFuture<PrintResult> executePrint(PrintTask task) {
+        return executeBatch(Collections.singletonList(task)).thenApply(results -> results.get(0));
+    }
 
-                // 更新任务状态
-                task.setStatus(PrintTaskStatus.COMPLETED);
-                printTaskPersistence.markTaskAsCompleted(task);
-                printMetrics.recordSuccess();
+    /**
+     * 合并打印同一打印机的多个任务
+     * 各任务的内容（多份的重复写入）依次拼接，中间插入切纸指令（打印机没有切刀时走纸），作为一个打印作业交给打印后端，
+     * 省去每个任务单独创建作业的开销。返回的结果与传入任务一一对应。
+     * 返回的future在打印作业真正结束后才完成，打印机报告失败或取消时任务按失败处理
+     */
+    public CompletableFuture<List<PrintResult>> executeBatch(List<PrintTask> tasks) {
+        PrintResult[] results = new PrintResult[tasks.size()];
+        String printerName = resolvePrinterName(tasks.get(0).getPrinterName());
+        return CompletableFuture.supplyAsync(() -> {
+            if (!isPrinterReady(printerName)) {
+                throw new PrinterNotAvailableException("打印机未就绪: " + printerName);
+            }
+            byte[] separator = backend.getCapabilities(printerName).isCutter() ? CUT_PAPER : FEED_LINES;
+            // 按目标打印机的纸宽渲染
+            int dotsPerLine = paperProperties.dotsPerLineOf(printerName);
+
+            // 逐个渲染，单个任务内容有误不影响同批其他任务
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            List<Integer> rendered = new ArrayList<>(tasks.size());
+            for (int i = 0; i < tasks.size(); i++) {
+                PrintTask task = tasks.get(i);
+                try {
+                    byte[] bytes = renderTask(task, dotsPerLine);
+                    // 多份只渲染一次，重复写入同一个作业，每份之间切纸
+                    int copies = copiesOf(task);
+                    for (int copy = 0; copy < copies; copy++) {
+                        if (payload.size() > 0) {
+                            payload.write(separator);
+                        }
+                        payload.write(bytes);
+                    }
+                    rendered.add(i);
+                } catch (Exception e) {
+                    results[i] = failed(task, e, false);
+                }
+            }
+            if (rendered.isEmpty()) {
+                return CompletableFuture.<Void>completedFuture(null);
+            }
 
-                return new PrintResult(true, "打印成功");
+            log.info("打印作业信息: 打印机: {}, 任务数: {}, 字节数: {}",
+                    printerName, rendered.size(), payload.size());
+            long spooledAt = System.nanoTime();
+            CompletableFuture<PrinterBackend.Completion> done;
+            try {
+                done = backend.submit(printerName, payload.toByteArray());
             } catch (Exception e) {
-                task.setStatus(PrintTaskStatus.FAILED);
-                printMetrics.recordFailure();
-                log.error("打印失败: {}", task.getTaskId(), e);
-                return new PrintResult(false, "打印失败: " + e.getMessage());
+                throw new CompletionException(e);
             }
+            rateLimiter.recordBytes(printerName, payload.size());
+
+            // 作业真正结束（或按超时推定结束）后才标记完成，此前任务保持PRINTING
+            return done.thenAccept(completion -> {
+                printMetrics.recordSpoolToDone(printerName, System.nanoTime() - spooledAt,
+                        completion == PrinterBackend.Completion.CONFIRMED);
+                for (int i : rendered) {
+                    PrintTask task = tasks.get(i);
+                    task.setStatus(PrintTaskStatus.COMPLETED);
+                    results[i] = new PrintResult(true, "打印成功");
+                    // 已经打印出来的任务不能因为记账失败而按失败重试，否则会重复打印
+                    try {
+                        printTaskPersistence.markTaskAsCompleted(task);
+                        printMetrics.recordSuccess();
+                    } catch (Exception e) {
+                        log.error("任务已打印，记录完成状态失败: {}", task.getTaskId(), e);
+                    }
+                }
+            });
+        }, printIoExecutor).thenCompose(done -> done).handle((ignored, ex) -> {
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                Exception error = cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+                for (int i = 0; i < tasks.size(); i++) {
+                    if (results[i] == null) {
+                        results[i] = failed(tasks.get(i), error, true);
+                    }
+                }
+            }
+            return Arrays.asList(results);
         });
     }
 
-    // 检查打印机状态
-    public boolean isPrinterReady(String printerName) {
-        try {
-            PrintService printer = getPrinterByName(printerName);
-            if (printer == null) {
-                log.error("未找到打印机: {}", printerName);
-                return false;
-            }
-
-            //PrinterState printerState = printer.getAttribute(PrinterState.class);
-            //PrinterStateReasons stateReasons = printer.getAttribute(PrinterStateReasons.class);
-            //
-            //if (printerState == null) {
-            //    log.warn("无法获取打印机状态，假定打印机可用");
-            //    return true;
-            //}
-            //
-            //if (stateReasons != null && !stateReasons.isEmpty()) {
-            //    for (PrinterStateReason reason : stateReasons.keySet()) {
-            //        if (stateReasons.get(reason) == Severity.ERROR) {
-            //            log.error("打印机错误: {}", reason);
-            //            return false;
-            //        }
-            //    }
-            //}
-
-            // 打印详细的属性信息
-            AttributeSet attributes = printer.getAttributes();
-            for (Attribute attr : attributes.toArray()) {
-                log.info("打印机属性: {} = {}", attr.getName(), attributes.get(attr.getClass()));
-            }
-            // 直接返回 true，暂时跳过状态检查
-            return true;
-
-        } catch (Exception e) {
-            log.error("检查打印机状态时发生错误", e);
-            return false;
+    // 将任务内容渲染为打印机字节：小票按模板渲染，PDF逐页光栅化；重试和重打直接使用缓存的结果，
+    // 小票的{{now}}在取出时才插入当前时间
+    private byte[] renderTask(PrintTask task, int dotsPerLine) throws IOException {
+        RenderedContent cached = renderedBytesCache.get(task, dotsPerLine);
+        if (cached != null) {
+            log.debug("任务ID: {}, 使用缓存的渲染结果", task.getTaskId());
+            return cached.toBytes();
         }
+        log.info("任务ID: {}, 类型: {}, 打印内容长度: {}", task.getTaskId(), task.getType(), task.getContent().length());
+        RenderedContent content;
+        if (task.getType() == PrintTaskType.PDF) {
+            byte[] pdf = Base64.getMimeDecoder().decode(task.getContent());
+            content = RenderedContent.of(pdfRenderer.render(pdf, dotsPerLine));
+        } else {
+            // 解析任务内容
+            JSONObject printData = JSONObject.parseObject(task.getContent());
+            content = receiptRenderer.renderContent(printData, dotsPerLine);
+        }
+        renderedBytesCache.put(task, dotsPerLine, content);
+        return content.toBytes();
     }
 
-    // 格式化打印内容
-    private String formatPrintContent(JSONObject data) {
-        StringBuilder content = new StringBuilder();
-
-
-        // ESC/POS 指令常量
-        final String ESC = "\u001B";
-        final String GS = "\u001D";
-        // 字体放大指令: ESC ! n  (n = 0-255, 位0-3表示字体，位4-7表示大小)
-        final String NORMAL_SIZE = ESC + "!0";  // 正常大小
-        final String LARGE_SIZE = ESC + "!16";  // 双倍大小
-
-
-        // 标题部分
-        content.append("         配送单\n");
-        content.append(LARGE_SIZE)  // 切换到大号字体
-                .append("指尖赤壁\n")
-                .append("========\n")
-                .append(data.getString("merchant")).append("\n")  // 商家名称也使用大号字体
-                .append(NORMAL_SIZE);  // 切换回正常字体
-
-        content.append("#").append(data.getString("day_index")).append("\n\n");
-
-        // 订单信息部分
-        content.append("订单号: ").append(data.getString("orderNo")).append("\n");
-        content.append("下单时间: ").append(data.getString("orderTime").substring(5, 16)).append("\n");
-        String goodsStr = data.getString("goods");
-        String[] goods = goodsStr.split(", ");  // 按逗号分割商品
-        for (String good : goods) {
-            content.append("  ").append(good).append("\n");  // 缩进显示每个商品
+    // 份数不超过print.max-copies，防止误传的大数值打出整卷纸
+    private int copiesOf(PrintTask task) {
+        int copies = Math.max(1, task.getCopies());
+        if (copies > maxCopies) {
+            log.warn("任务ID: {}, 份数{}超过上限, 按{}份打印", task.getTaskId(), copies, maxCopies);
+            return maxCopies;
         }
-        content.append("配送费: ").append(data.getString("deliveryFee")).append("\n");
-        content.append("商品总价: ￥").append(data.getString("totalPrice")).append("\n");
-        content.append("实付金额: ￥").append(data.getString("actualPayment")).append("\n");
-        content.append("支付方式: ").append(data.getString("paymentMethod")).append("\n");
-        content.append("配送状态: ").append(data.getString("delivery_status")).append("\n");
-
-        // 第一条分隔线
-        content.append("-----------------------------\n");
+        return copies;
+    }
 
-        // 顾客信息部分
-        content.append("顾客信息: ")
-                .append(data.getString("customer"))
-                .append(" ")
-                .append(data.getString("customerPhone"))
-                .append("\n");
-        content.append("收货地址: ").append(data.getString("address")).append("\n");
+    private PrintResult failed(PrintTask task, Exception e, boolean printerFault) {
+        task.setStatus(PrintTaskStatus.FAILED);
+        printMetrics.recordFailure();
+        log.error("打印失败: {}", task.getTaskId(), e);
+        return new PrintResult(false, "打印失败: " + e.getMessage(), printerFault);
+    }
 
-        // 打印时间和结束分隔线
-        content.append("打印时间: ").append(getCurrentTime()).append("\n");
-        content.append("-----------------------------\n\n\n");  // 留出撕纸空间
+    // 检查打印机状态，读取后端的缓存状态，不阻塞调用线程
+    public boolean isPrinterReady(String printerName) {
+        return backend.getStatus(resolvePrinterName(printerName)).isReady();
+    }
 
-        return content.toString();
+    // 立即检查打印机状态，用于熔断后的探测
+    public boolean probePrinter(String printerName) {
+        return backend.probe(resolvePrinterName(printerName)).isReady();
     }
 
-    private String getCurrentTime() {
-        return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    private String resolvePrinterName(String printerName) {
+        return printerName == null || printerName.trim().isEmpty() ? configuredPrinterName : printerName;
     }
 
     // 打印结果类
     public static class PrintResult {
         private final boolean success;
         private final String message;
+        // 失败是否由打印机或后台打印程序引起，内容渲染失败为false
+        private final boolean printerFault;
 
         public PrintResult(boolean success, String message) {
+            this(success, message, false);
+        }
+
+        public PrintResult(boolean success, String message, boolean printerFault) {
             this.success = success;
             this.message = message;
+            this.printerFault = printerFault;
+        }
+
+        public boolean isPrinterFault() {
+            return printerFault;
         }
 
         public boolean isSuccess() {
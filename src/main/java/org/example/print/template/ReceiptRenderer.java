@@ -0,0 +1,106 @@
+package org.example.print.template;
+
+import com.alibaba.fastjson2.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.example.print.component.ImageRasterizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+
+/**
+ * 小票渲染
+ * 启动时加载并编译print.template.location指定的模板，渲染缓冲区（连同GBK编码器）放在池中复用。
+ * 用有界池而不是ThreadLocal：虚拟线程模式下每个任务一个线程，ThreadLocal缓存起不到复用作用。
+ * 模板中的图片块由ImageRasterizer转换，抖动结果在其中缓存
+ */
+@Component
+@Slf4j
+public class ReceiptRenderer {
+
+    private static final int POOL_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 2048;
+    // 渲染过超大小票后缓冲区不再放回池中，避免长期占用内存
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    private final ReceiptTemplate template;
+    private final ReceiptTemplate.ImageSource images;
+    private final BlockingQueue<ReceiptTemplate.Output> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    @Autowired
+    public ReceiptRenderer(
+            ResourceLoader resourceLoader,
+            @Value("${print.template.location:classpath:print-templates/receipt.tpl}") String location,
+            ImageRasterizer imageRasterizer) {
+        this(ReceiptTemplate.compile(load(resourceLoader.getResource(location))), imageRasterizer::raster);
+        log.info("小票模板已编译: {}", location);
+    }
+
+    public ReceiptRenderer(ResourceLoader resourceLoader, String location) {
+        this(ReceiptTemplate.compile(load(resourceLoader.getResource(location))));
+    }
+
+    public ReceiptRenderer(ReceiptTemplate template) {
+        this(template, null);
+    }
+
+    public ReceiptRenderer(ReceiptTemplate template, ReceiptTemplate.ImageSource images) {
+        this.template = template;
+        this.images = images;
+    }
+
+    /**
+     * 按58mm纸宽渲染为打印机字节
+     */
+    public byte[] render(JSONObject data) {
+        return render(data, ReceiptTemplate.DEFAULT_DOTS_PER_LINE);
+    }
+
+    /**
+     * 渲染为打印机字节，图片按目标打印机的每行点数缩放
+     */
+    public byte[] render(JSONObject data, int dotsPerLine) {
+        return render(data, dotsPerLine, ReceiptTemplate.Output::toByteArray);
+    }
+
+    /**
+     * 渲染为在{{now}}处分段的结果，用于缓存，打印时再插入当前时间
+     */
+    public RenderedContent renderContent(JSONObject data, int dotsPerLine) {
+        return render(data, dotsPerLine, ReceiptTemplate.Output::toContent);
+    }
+
+    private <T> T render(JSONObject data, int dotsPerLine, Function<ReceiptTemplate.Output, T> result) {
+        ReceiptTemplate.Output output = pool.poll();
+        if (output == null) {
+            output = new ReceiptTemplate.Output(INITIAL_CAPACITY, images);
+        }
+        try {
+            output.setDotsPerLine(dotsPerLine);
+            template.render(data, output);
+            return result.apply(output);
+        } finally {
+            output.reset();
+            if (output.capacity() <= MAX_POOLED_CAPACITY) {
+                pool.offer(output);
+            }
+        }
+    }
+
+    private static String load(Resource resource) {
+        try (InputStream in = resource.getInputStream()) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("读取小票模板失败: " + resource, e);
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package org.example.print.template;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的小票模板
+ * 模板在启动时编译为指令列表：固定文字和ESC/POS指令预先编码为GBK字节，
+ * 渲染时只把字段值用缓存的编码器直接编码进可复用的缓冲区，不再拼接字符串再整体getBytes。
+ *
+ * 语法：
+ * {{field}}            字段值，字段不存在时不输出
+ * {{field|5,16}}       字段值的[5,16)子串，超出长度时截断
+ * {{now}}              当前时间 yyyy-MM-dd HH:mm:ss
+ * {{@large}}           ESC/POS指令，见COMMANDS
+ * {{image:logo}}       图片块：字段值为预置图片名称或Base64图片，字段不存在时打印同名的预置图片，
+ *                      由ImageSource按打印机每行点数转换为位图指令，对齐方式沿用之前的{{@center}}等指令
+ * {{#goods}}...{{/goods}} 重复段：字段为数组时逐个元素输出，为字符串时按", "分割；
+ *                      段内{{.}}为当前元素，元素为对象时段内字段从元素中读取
+ * {{now}}只在Output中记下位置，输出结果时再插入当前时间，渲染结果可以按段缓存（见RenderedContent）。
+ * 模板实例不可变，可在多个线程间共享；Output不是线程安全的，每个线程各用一个
+ */
+public final class ReceiptTemplate {
+
+    private static final Charset GBK = Charset.forName("GBK");
+    private static final String ITEM_SEPARATOR = ", ";
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // 58mm打印机每行点数，Output未指定纸宽时使用
+    public static final int DEFAULT_DOTS_PER_LINE = 384;
+
+    // ESC/POS 指令，ESC ! n 中n的位4为倍高、位5为倍宽
+    private static final Map<String, byte[]> COMMANDS = new HashMap<>();
+
+    static {
+        COMMANDS.put("normal", new byte[]{0x1B, 0x21, 0x00});
+        COMMANDS.put("large", new byte[]{0x1B, 0x21, 0x10});
+        COMMANDS.put("bold", new byte[]{0x1B, 0x45, 0x01});
+        COMMANDS.put("bold-off", new byte[]{0x1B, 0x45, 0x00});
+        COMMANDS.put("left", new byte[]{0x1B, 0x61, 0x00});
+        COMMANDS.put("center", new byte[]{0x1B, 0x61, 0x01});
+        COMMANDS.put("cut", new byte[]{0x1D, 0x56, 0x42, 0x00});
+    }
+
+    // 同一秒内的打印时间只格式化一次
+    private static volatile CachedTime cachedTime = new CachedTime(-1, new byte[0]);
+
+    private final List<Instruction> instructions;
+
+    private ReceiptTemplate(List<Instruction> instructions) {
+        this.instructions = instructions;
+    }
+
+    /**
+     * 编译模板，语法错误时抛出IllegalArgumentException
+     */
+    public static ReceiptTemplate compile(String source) {
+        String normalized = source.replace("\r\n", "\n");
+        Parser parser = new Parser(normalized);
+        List<Instruction> instructions = parser.parse(null);
+        return new ReceiptTemplate(Collections.unmodifiableList(instructions));
+    }
+
+    /**
+     * 渲染到output，调用方负责reset
+     */
+    public void render(JSONObject data, Output output) {
+        execute(instructions, data, null, output);
+    }
+
+    private static void execute(List<Instruction> instructions, JSONObject data, CharSequence item, Output output) {
+        for (Instruction instruction : instructions) {
+            instruction.execute(data, item, output);
+        }
+    }
+
+    /**
+     * 图片块的来源，返回按dotsPerLine缩放后的打印机字节，没有可打印的图片时返回null
+     */
+    @FunctionalInterface
+    public interface ImageSource {
+        byte[] raster(String name, String value, int dotsPerLine);
+    }
+
+    private interface Instruction {
+        void execute(JSONObject data, CharSequence item, Output output);
+    }
+
+    private static final class Literal implements Instruction {
+        private final byte[] bytes;
+
+        private Literal(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void execute(JSONObject data, CharSequence item, Output output) {
+            output.write(bytes);
+        }
+    }
+
+    private static final class Field implements Instruction {
+        private final String name;
+        private final int from;
+        private final int to;
+
+        private Field(String name, int from, int to) {
+            this.name = name;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void execute(JSONObject data, CharSequence item, Output output) {
+            String value = data == null ? null : data.getString(name);
+            if (value == null) {
+                return;
+            }
+            int end = Math.min(to, value.length());
+            if (from < end) {
+                output.writeText(value, from, end);
+            }
+        }
+    }
+
+    private static final class Image implements Instruction {
+        private final String name;
+
+        private Image(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void execute(JSONObject data, CharSequence item, Output output) {
+            output.writeImage(name, data == null ? null : data.getString(name));
+        }
+    }
+
+    private static final class Item implements Instruction {
+        @Override
+        public void execute(JSONObject data, CharSequence item, Output output) {
+            if (item != null) {
+                output.writeText(item, 0, item.length());
+            }
+        }
+    }
+
+    private static final class Now implements Instruction {
+        @Override
+        public void execute(JSONObject data, CharSequence item, Output output) {
+            output.markTime();
+        }
+    }
+
+    /**
+     * 当前时间的GBK字节，调用方不能修改
+     */
+    static byte[] currentTime() {
+        long second = System.currentTimeMillis() / 1000;
+        CachedTime cached = cachedTime;
+        if (cached.second != second) {
+            cached = new CachedTime(second, LocalDateTime.now().format(TIME_FORMAT).getBytes(GBK));
+            cachedTime = cached;
+        }
+        return cached.bytes;
+    }
+
+    private static final class Section implements Instruction {
+        private final String name;
+        private final List<Instruction> body;
+
+        private Section(String name, List<Instruction> body) {
+            this.name = name;
+            this.body = body;
+        }
+
+        @Override
+        public void execute(JSONObject data, CharSequence item, Output output) {
+            Object value = data == null ? null : data.get(name);
+            if (value instanceof JSONArray) {
+                for (Object element : (JSONArray) value) {
+                    if (element instanceof JSONObject) {
+                        ReceiptTemplate.execute(body, (JSONObject) element, null, output);
+                    } else if (element != null) {
+                        ReceiptTemplate.execute(body, data, String.valueOf(element), output);
+                    }
+                }
+            } else if (value != null) {
+                // 逗号分隔的字符串，按区间包装，不生成子串
+                String text = value.toString();
+                // 与String.split一致，末尾的空元素不输出
+                int start = 0;
+                do {
+                    int end = text.indexOf(ITEM_SEPARATOR, start);
+                    if (end < 0) {
+                        end = text.length();
+                    }
+                    ReceiptTemplate.execute(body, data, CharBuffer.wrap(text, start, end), output);
+                    start = end + ITEM_SEPARATOR.length();
+                } while (start < text.length());
+            }
+        }
+    }
+
+    private static final class CachedTime {
+        private final long second;
+        private final byte[] bytes;
+
+        private CachedTime(long second, byte[] bytes) {
+            this.second = second;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * 模板解析，相邻的固定文字和指令合并为一段字节
+     */
+    private static final class Parser {
+        private final String source;
+        private int position;
+
+        private Parser(String source) {
+            this.source = source;
+        }
+
+        private List<Instruction> parse(String section) {
+            List<Instruction> instructions = new ArrayList<>();
+            ByteArrayOutputStream literal = new ByteArrayOutputStream();
+            while (position < source.length()) {
+                int open = source.indexOf("{{", position);
+                if (open < 0) {
+                    appendText(literal, source.substring(position));
+                    position = source.length();
+                    break;
+                }
+                appendText(literal, source.substring(position, open));
+                int close = source.indexOf("}}", open + 2);
+                if (close < 0) {
+                    throw new IllegalArgumentException("模板语法错误: 缺少}}, 位置: " + open);
+                }
+                String tag = source.substring(open + 2, close).trim();
+                position = close + 2;
+                if (tag.startsWith("@")) {
+                    byte[] command = COMMANDS.get(tag.substring(1));
+                    if (command == null) {
+                        throw new IllegalArgumentException("模板语法错误: 未知指令: " + tag);
+                    }
+                    literal.write(command, 0, command.length);
+                    continue;
+                }
+                if (tag.startsWith("/")) {
+                    if (!tag.substring(1).equals(section)) {
+                        throw new IllegalArgumentException("模板语法错误: 多余的结束标记: " + tag);
+                    }
+                    flush(literal, instructions);
+                    return instructions;
+                }
+                flush(literal, instructions);
+                if (tag.startsWith("image:")) {
+                    String name = tag.substring("image:".length()).trim();
+                    if (name.isEmpty()) {
+                        throw new IllegalArgumentException("模板语法错误: 缺少图片名称: " + tag);
+                    }
+                    instructions.add(new Image(name));
+                } else if (tag.startsWith("#")) {
+                    String name = tag.substring(1);
+                    instructions.add(new Section(name, Collections.unmodifiableList(parse(name))));
+                } else if (".".equals(tag)) {
+                    instructions.add(new Item());
+                } else if ("now".equals(tag)) {
+                    instructions.add(new Now());
+                } else {
+                    instructions.add(field(tag));
+                }
+            }
+            if (section != null) {
+                throw new IllegalArgumentException("模板语法错误: 缺少结束标记: {{/" + section + "}}");
+            }
+            flush(literal, instructions);
+            return instructions;
+        }
+
+        private static Instruction field(String tag) {
+            int bar = tag.indexOf('|');
+            if (bar < 0) {
+                return new Field(tag, 0, Integer.MAX_VALUE);
+            }
+            String[] range = tag.substring(bar + 1).split(",");
+            try {
+                int from = Integer.parseInt(range[0].trim());
+                int to = range.length > 1 ? Integer.parseInt(range[1].trim()) : Integer.MAX_VALUE;
+                return new Field(tag.substring(0, bar).trim(), from, to);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("模板语法错误: 子串范围无效: " + tag);
+            }
+        }
+
+        private static void appendText(ByteArrayOutputStream literal, String text) {
+            byte[] bytes = text.getBytes(GBK);
+            literal.write(bytes, 0, bytes.length);
+        }
+
+        private static void flush(ByteArrayOutputStream literal, List<Instruction> instructions) {
+            if (literal.size() > 0) {
+                instructions.add(new Literal(literal.toByteArray()));
+                literal.reset();
+            }
+        }
+    }
+
+    /**
+     * 渲染缓冲区，带一个GBK编码器，可反复使用；没有图片来源时图片块不输出。
+     * 图片按dotsPerLine缩放，渲染前设置为目标打印机的每行点数
+     */
+    public static final class Output {
+        private final CharsetEncoder encoder = GBK.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ImageSource images;
+        private ByteBuffer buffer;
+        private int dotsPerLine = DEFAULT_DOTS_PER_LINE;
+        // {{now}}的位置，输出时在这些位置插入当前时间
+        private int[] timeSlots = new int[4];
+        private int timeSlotCount;
+
+        public Output(int initialCapacity) {
+            this(initialCapacity, null);
+        }
+
+        public Output(int initialCapacity, ImageSource images) {
+            this.buffer = ByteBuffer.allocate(initialCapacity);
+            this.images = images;
+        }
+
+        // clear()和flip()经Buffer调用：JDK 9+编译时会链接到ByteBuffer的协变重载，Java 8运行时没有该方法
+        public void reset() {
+            ((Buffer) buffer).clear();
+            timeSlotCount = 0;
+        }
+
+        public void setDotsPerLine(int dotsPerLine) {
+            this.dotsPerLine = dotsPerLine;
+        }
+
+        public int size() {
+            return buffer.position();
+        }
+
+        public int capacity() {
+            return buffer.capacity();
+        }
+
+        /**
+         * 打印机字节，{{now}}处插入当前时间
+         */
+        public byte[] toByteArray() {
+            if (timeSlotCount == 0) {
+                byte[] bytes = new byte[buffer.position()];
+                System.arraycopy(buffer.array(), 0, bytes, 0, bytes.length);
+                return bytes;
+            }
+            return toContent().toBytes();
+        }
+
+        /**
+         * 在{{now}}处分段的渲染结果，可以缓存
+         */
+        public RenderedContent toContent() {
+            byte[][] segments = new byte[timeSlotCount + 1][];
+            int start = 0;
+            for (int i = 0; i <= timeSlotCount; i++) {
+                int end = i < timeSlotCount ? timeSlots[i] : buffer.position();
+                segments[i] = new byte[end - start];
+                System.arraycopy(buffer.array(), start, segments[i], 0, segments[i].length);
+                start = end;
+            }
+            return new RenderedContent(segments);
+        }
+
+        void markTime() {
+            if (timeSlotCount == timeSlots.length) {
+                timeSlots = Arrays.copyOf(timeSlots, timeSlotCount * 2);
+            }
+            timeSlots[timeSlotCount++] = buffer.position();
+        }
+
+        void write(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void writeImage(String name, String value) {
+            byte[] raster = images == null ? null : images.raster(name, value, dotsPerLine);
+            if (raster != null) {
+                write(raster);
+            }
+        }
+
+        void writeText(CharSequence text, int start, int end) {
+            // GBK兼容ASCII，ASCII字符直接写入，遇到其他字符再交给编码器
+            ensureCapacity(end - start);
+            int i = start;
+            while (i < end) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                buffer.put((byte) c);
+                i++;
+            }
+            if (i < end) {
+                encode(CharBuffer.wrap(text, i, end));
+            }
+        }
+
+        private void encode(CharBuffer chars) {
+            encoder.reset();
+            while (encoder.encode(chars, buffer, true) == CoderResult.OVERFLOW) {
+                grow(chars.remaining() * 2);
+            }
+            while (encoder.flush(buffer) == CoderResult.OVERFLOW) {
+                grow(16);
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (buffer.remaining() < extra) {
+                grow(extra);
+            }
+        }
+
+        private void grow(int extra) {
+            int capacity = Math.max(buffer.capacity() * 2, buffer.position() + extra);
+            ByteBuffer larger = ByteBuffer.allocate(capacity);
+            ((Buffer) buffer).flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.print.template;
+
+/**
+ * 渲染结果
+ * 小票在{{now}}处分段，各段只取决于任务内容和纸宽，可以缓存；打印时再在段之间插入当前时间，
+ * 重打和重试的小票打印时间仍是当前时间。PDF和没有{{now}}的小票只有一段。实例不可变
+ */
+public final class RenderedContent {
+
+    private final byte[][] segments;
+    private final int size;
+
+    public RenderedContent(byte[][] segments) {
+        this.segments = segments;
+        int total = 0;
+        for (byte[] segment : segments) {
+            total += segment.length;
+        }
+        this.size = total;
+    }
+
+    public static RenderedContent of(byte[] bytes) {
+        return new RenderedContent(new byte[][]{bytes});
+    }
+
+    /**
+     * 各段的字节数之和，不含插入的时间
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 打印机字节，段之间插入当前时间；只有一段时直接返回该段，调用方不能修改
+     */
+    public byte[] toBytes() {
+        if (segments.length == 1) {
+            return segments[0];
+        }
+        byte[] time = ReceiptTemplate.currentTime();
+        byte[] bytes = new byte[size + time.length * (segments.length - 1)];
+        int position = 0;
+        for (int i = 0; i < segments.length; i++) {
+            if (i > 0) {
+                System.arraycopy(time, 0, bytes, position, time.length);
+                position += time.length;
+            }
+            System.arraycopy(segments[i], 0, bytes, position, segments[i].length);
+            position += segments[i].length;
+        }
+        return bytes;
+    }
+}
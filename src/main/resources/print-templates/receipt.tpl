@@ -0,0 +1,21 @@
+{{@center}}{{image:logo}}{{@left}}         配送单
+{{@large}}指尖赤壁
+========
+{{merchant}}
+{{@normal}}#{{day_index}}
+
+订单号: {{orderNo}}
+下单时间: {{orderTime|5,16}}
+{{#goods}}  {{.}}
+{{/goods}}配送费: {{deliveryFee}}
+商品总价: ￥{{totalPrice}}
+实付金额: ￥{{actualPayment}}
+支付方式: {{paymentMethod}}
+配送状态: {{delivery_status}}
+-----------------------------
+顾客信息: {{customer}} {{customerPhone}}
+收货地址: {{address}}
+打印时间: {{now}}
+{{@center}}{{image:qrcode}}{{@left}}-----------------------------
+
+
@@ -0,0 +1,71 @@
+package org.example.print.backend;
+
+import org.example.print.config.PrinterBackendProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmulatedPrinterBackendTest {
+
+    private static PrinterBackendProperties.Emulated config() {
+        PrinterBackendProperties.Emulated config = new PrinterBackendProperties.Emulated();
+        config.setLatency(0);
+        config.setJitter(0);
+        config.setBytesPerSecond(0);
+        return config;
+    }
+
+    @Test
+    @DisplayName("打印耗时按数据量和打印速度计算")
+    void printSpeed() throws Exception {
+        PrinterBackendProperties.Emulated config = config();
+        config.setLatency(20);
+        config.setBytesPerSecond(10_000);
+        EmulatedPrinterBackend backend = new EmulatedPrinterBackend(config);
+
+        long start = System.nanoTime();
+        backend.submit("p", new byte[1000]);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 20ms固定耗时 + 1000字节 / 10000字节每秒
+        assertTrue(elapsed >= 120, "耗时: " + elapsed);
+        assertEquals(1L, backend.getStatistics().get("p").get("jobs"));
+        assertEquals(1000L, backend.getStatistics().get("p").get("bytes"));
+    }
+
+    @Test
+    @DisplayName("缺纸期间作业失败且状态不可用，到期后恢复")
+    void paperOut() throws Exception {
+        PrinterBackendProperties.Emulated config = config();
+        config.setPaperOutRate(1);
+        config.setPaperOutDuration(100);
+        EmulatedPrinterBackend backend = new EmulatedPrinterBackend(config);
+
+        assertThrows(IOException.class, () -> backend.submit("p", new byte[10]));
+        assertFalse(backend.getStatus("p").isReady());
+        assertTrue(backend.getStatus("p").getReasons().contains("media-empty(error)"));
+        // 其他打印机不受影响
+        assertTrue(backend.getStatus("q").isReady());
+
+        Thread.sleep(150);
+        assertTrue(backend.probe("p").isReady());
+        config.setPaperOutRate(0);
+        backend.submit("p", new byte[10]);
+    }
+
+    @Test
+    @DisplayName("按失败率随机失败")
+    void failureRate() {
+        PrinterBackendProperties.Emulated config = config();
+        config.setFailureRate(1);
+        EmulatedPrinterBackend backend = new EmulatedPrinterBackend(config);
+
+        assertThrows(IOException.class, () -> backend.submit("p", new byte[10]));
+        // 普通失败不影响打印机状态
+        assertTrue(backend.getStatus("p").isReady());
+    }
+}
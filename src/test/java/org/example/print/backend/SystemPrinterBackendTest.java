@@ -0,0 +1,155 @@
+package org.example.print.backend;
+
+import org.example.print.component.PrinterHealthMonitor;
+import org.example.print.component.PrinterRegistry;
+import org.example.print.component.RawTcpPrinterClient;
+import org.example.print.config.NetworkPrinterProperties;
+import org.example.print.config.PrinterGroupProperties;
+import org.example.print.service.UnifiedPrintService.PrinterNotAvailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.print.DocPrintJob;
+import javax.print.PrintService;
+import javax.print.event.PrintJobEvent;
+import javax.print.event.PrintJobListener;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SystemPrinterBackendTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 模拟打印机，print时把作业和已注册的监听器交给onPrint决定触发哪些事件
+     */
+    private SystemPrinterBackend backend(BiConsumer<DocPrintJob, PrintJobListener[]> onPrint, long timeoutMillis) {
+        return backend(onPrint, timeoutMillis, new PrinterGroupProperties());
+    }
+
+    private SystemPrinterBackend backend(BiConsumer<DocPrintJob, PrintJobListener[]> onPrint, long timeoutMillis,
+                                         PrinterGroupProperties groupProperties) {
+        PrintJobListener[] listener = new PrintJobListener[1];
+        DocPrintJob[] job = new DocPrintJob[1];
+        job[0] = (DocPrintJob) Proxy.newProxyInstance(DocPrintJob.class.getClassLoader(),
+                new Class<?>[]{DocPrintJob.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "addPrintJobListener":
+                            listener[0] = (PrintJobListener) args[0];
+                            return null;
+                        case "removePrintJobListener":
+                            listener[0] = null;
+                            return null;
+                        case "print":
+                            onPrint.accept(job[0], listener);
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+        PrintService service = (PrintService) Proxy.newProxyInstance(PrintService.class.getClassLoader(),
+                new Class<?>[]{PrintService.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return "GP-C58 Series";
+                        case "createPrintJob":
+                            return job[0];
+                        case "hashCode":
+                            return 1;
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+        PrinterRegistry registry = new PrinterRegistry(() -> new PrintService[]{service}, event -> { }, Runnable::run, 0);
+        registry.init();
+        NetworkPrinterProperties networkPrinters = new NetworkPrinterProperties();
+        return new SystemPrinterBackend(registry, new PrinterHealthMonitor(registry), networkPrinters,
+                groupProperties, new RawTcpPrinterClient(networkPrinters), scheduler, timeoutMillis);
+    }
+
+    @Test
+    @DisplayName("打印机报告作业完成后future才完成")
+    void completedAfterJobCompleted() throws Exception {
+        SystemPrinterBackend backend = backend((job, listener) -> scheduler.schedule(
+                () -> listener[0].printJobCompleted(new PrintJobEvent(job, PrintJobEvent.JOB_COMPLETE)),
+                100, TimeUnit.MILLISECONDS), 5000);
+
+        CompletableFuture<PrinterBackend.Completion> done = backend.submit("GP-C58 Series", new byte[10]);
+        assertFalse(done.isDone());
+        assertEquals(PrinterBackend.Completion.CONFIRMED, done.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("作业失败时future异常完成")
+    void failedJob() throws Exception {
+        SystemPrinterBackend backend = backend((job, listener) ->
+                listener[0].printJobFailed(new PrintJobEvent(job, PrintJobEvent.JOB_FAILED)), 5000);
+
+        CompletableFuture<PrinterBackend.Completion> done = backend.submit("GP-C58 Series", new byte[10]);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> done.get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IOException);
+    }
+
+    @Test
+    @DisplayName("不再有事件或等待超时都按推定完成处理")
+    void assumedCompletion() throws Exception {
+        SystemPrinterBackend noMoreEvents = backend((job, listener) ->
+                listener[0].printJobNoMoreEvents(new PrintJobEvent(job, PrintJobEvent.NO_MORE_EVENTS)), 5000);
+        assertEquals(PrinterBackend.Completion.ASSUMED,
+                noMoreEvents.submit("GP-C58 Series", new byte[10]).get(1, TimeUnit.SECONDS));
+
+        SystemPrinterBackend silent = backend((job, listener) -> { }, 100);
+        CompletableFuture<PrinterBackend.Completion> done = silent.submit("GP-C58 Series", new byte[10]);
+        assertFalse(done.isDone());
+        assertEquals(PrinterBackend.Completion.ASSUMED, done.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("数据传输完成后不再报告事件时，不等整体超时即按推定完成处理")
+    void assumedShortlyAfterTransfer() throws Exception {
+        SystemPrinterBackend backend = backend((job, listener) ->
+                listener[0].printDataTransferCompleted(new PrintJobEvent(job, PrintJobEvent.DATA_TRANSFER_COMPLETE)),
+                60000);
+        ReflectionTestUtils.setField(backend, "transferGraceMillis", 100L);
+
+        CompletableFuture<PrinterBackend.Completion> done = backend.submit("GP-C58 Series", new byte[10]);
+        assertFalse(done.isDone());
+        assertEquals(PrinterBackend.Completion.ASSUMED, done.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("找不到的打印机组成员不回退到默认打印机，其他打印机仍回退")
+    void missingGroupMemberNotResolvedToDefault() throws Exception {
+        PrinterGroupProperties groupProperties = new PrinterGroupProperties();
+        groupProperties.getGroups().put("counter", Arrays.asList("GP-C58 Series", "kitchen-2"));
+        SystemPrinterBackend backend = backend((job, listener) ->
+                listener[0].printJobCompleted(new PrintJobEvent(job, PrintJobEvent.JOB_COMPLETE)), 5000, groupProperties);
+        ReflectionTestUtils.setField(backend, "configuredPrinterName", "GP-C58 Series");
+
+        assertTrue(backend.isAvailable("GP-C58 Series"));
+        assertFalse(backend.isAvailable("kitchen-2"));
+        assertThrows(PrinterNotAvailableException.class, () -> backend.submit("kitchen-2", new byte[10]));
+        assertFalse(backend.getStatus("kitchen-2").isReady());
+
+        assertEquals(PrinterBackend.Completion.CONFIRMED,
+                backend.submit("unknown", new byte[10]).get(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.print.benchmark;
+
+import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskStatus;
+import org.example.print.component.PrintMetrics;
+import org.example.print.component.PrintQueue;
+import org.example.print.component.PrintRetryScheduler;
+import org.example.print.component.PrintTaskDispatcher;
+import org.example.print.component.PrinterCircuitBreaker;
+import org.example.print.component.PrinterRateLimiter;
+import org.example.print.component.PrinterRouter;
+import org.example.print.config.AdaptiveThreadPoolExecutor;
+import org.example.print.config.PrinterGroupProperties;
+import org.example.print.config.PrinterRateLimitProperties;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * 分发方式基准测试
+ * scheduled-poll: 原来的@Scheduled(fixedRate = 1000)每秒取一个任务
+ * dispatcher: PrintTaskDispatcher的打印机工作线程阻塞等待队列，任务到达立即分发
+ *
+ * 运行: mvn test-compile 后执行本类的main方法
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class DispatchBenchmark {
+
+    private static final int BURST = 10;
+
+    @Param({"scheduled-poll", "dispatcher"})
+    public String mode;
+
+    private PrintQueue printQueue;
+    private AdaptiveThreadPoolExecutor taskExecutor;
+    private ScheduledExecutorService poller;
+    private PrintTaskDispatcher dispatcher;
+    private PrintRetryScheduler retryScheduler;
+    private volatile CountDownLatch dispatched;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        printQueue = new PrintQueue("bench-printer", 1000, 5000);
+        taskExecutor = new AdaptiveThreadPoolExecutor(2, 8, 50, 200, 1000, "bench-task-");
+
+        if ("scheduled-poll".equals(mode)) {
+            // 模拟原来的定时轮询
+            poller = Executors.newSingleThreadScheduledExecutor();
+            poller.scheduleAtFixedRate(() -> {
+                PrintTask task = printQueue.poll();
+                if (task != null) {
+                    taskExecutor.execute(() -> handle(task));
+                }
+            }, 0, 1000, TimeUnit.MILLISECONDS);
+        } else {
+            // 不限速
+            PrinterRateLimiter rateLimiter = new PrinterRateLimiter(
+                    printQueue, new PrintMetrics(), new PrinterRateLimitProperties());
+            PrinterCircuitBreaker circuitBreaker = new PrinterCircuitBreaker(name -> true, event -> { }, 3, 30000);
+            retryScheduler = new PrintRetryScheduler(printQueue,
+                    new PrinterRouter(printQueue, new PrinterGroupProperties(), circuitBreaker));
+            retryScheduler.start();
+            dispatcher = new PrintTaskDispatcher(printQueue, taskExecutor, this::handleBatch,
+                    rateLimiter, circuitBreaker, retryScheduler, 8, 0);
+            dispatcher.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+        if (dispatcher != null) {
+            dispatcher.stop();
+            retryScheduler.stop();
+        }
+        taskExecutor.shutdown();
+    }
+
+    private CompletableFuture<?> handle(PrintTask task) {
+        dispatched.countDown();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private CompletableFuture<?> handleBatch(List<PrintTask> batch) {
+        batch.forEach(task -> dispatched.countDown());
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * 一次突发提交BURST个任务，全部分发完成为一次操作，结果单位为任务数/秒
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BURST)
+    public void burstThroughput() throws InterruptedException {
+        dispatched = new CountDownLatch(BURST);
+        for (int i = 0; i < BURST; i++) {
+            printQueue.put(newTask());
+        }
+        dispatched.await();
+    }
+
+    /**
+     * 单个任务从入队到被分发的延迟
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void enqueueToDispatchLatency() throws InterruptedException {
+        dispatched = new CountDownLatch(1);
+        printQueue.put(newTask());
+        dispatched.await();
+    }
+
+    private static PrintTask newTask() {
+        return PrintTask.builder()
+                .taskId(UUID.randomUUID().toString())
+                .content("{}")
+                .status(PrintTaskStatus.PENDING)
+                .createTime(LocalDateTime.now())
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DispatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
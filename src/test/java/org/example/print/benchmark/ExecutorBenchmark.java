@@ -0,0 +1,132 @@
+package org.example.print.benchmark;
+
+import org.example.print.config.VirtualThreads;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行方式对比：同时提交inFlight个阻塞任务（模拟RestTemplate通知和DocPrintJob.print），
+ * 统计全部完成的耗时，以及等待期间的线程数、堆内存和进程常驻内存
+ * pool: 原来的4个平台线程，超出的任务排队
+ * thread-per-task: 每个任务一个平台线程
+ * virtual: 每个任务一个虚拟线程，仅JDK 21及以上运行
+ *
+ * 运行: mvn test-compile 后执行本类的main方法
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 1, time = 3)
+@Measurement(iterations = 3, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExecutorBenchmark {
+
+    // 每个任务的阻塞时间
+    private static final long BLOCK_MILLIS = 20;
+
+    @Param({"pool", "thread-per-task", "virtual"})
+    public String mode;
+
+    @Param({"100", "1000", "4000"})
+    public int inFlight;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (mode) {
+            case "pool":
+                executor = Executors.newFixedThreadPool(4);
+                break;
+            case "thread-per-task":
+                executor = Executors.newCachedThreadPool();
+                break;
+            case "virtual":
+                executor = VirtualThreads.newThreadPerTaskExecutor("bench-");
+                if (executor == null) {
+                    throw new IllegalStateException("当前JDK不支持虚拟线程");
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(mode);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 等待期间的资源占用峰值
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long peakThreads;
+        public long heapUsedKb;
+        public long rssKb;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            peakThreads = 0;
+            heapUsedKb = 0;
+            rssKb = 0;
+        }
+    }
+
+    @Benchmark
+    public void completeAll(Footprint footprint) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(inFlight);
+        for (int i = 0; i < inFlight; i++) {
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(BLOCK_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        // 任务都在阻塞中时采样，取本轮迭代的峰值
+        footprint.peakThreads = Math.max(footprint.peakThreads, ManagementFactory.getThreadMXBean().getThreadCount());
+        footprint.heapUsedKb = Math.max(footprint.heapUsedKb,
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1024);
+        footprint.rssKb = Math.max(footprint.rssKb, readRssKb());
+        done.await();
+    }
+
+    // Linux下读取进程常驻内存，平台线程栈不在堆中，只能从这里看到
+    private static long readRssKb() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(ExecutorBenchmark.class.getSimpleName());
+        if (!VirtualThreads.isAvailable()) {
+            options.param("mode", "pool", "thread-per-task");
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.print.benchmark;
+
+import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskPriority;
+import org.example.print.component.PriorityAgingTaskQueue;
+import org.example.print.component.RingBufferTaskQueue;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打印队列实现对比：1、4、16个生产者对1个消费者（每台打印机一个工作线程）
+ * linked: 原来的LinkedBlockingQueue
+ * priority: 当前默认的优先级老化队列
+ * ring-*: 环形缓冲队列及其等待策略
+ *
+ * 以消费者（take组方法）的吞吐量为准，生产者和消费者均使用带超时的阻塞操作，
+ * 保证每轮迭代结束时线程都能退出
+ */
+@State(Scope.Group)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueueBenchmark {
+
+    private static final int CAPACITY = 1024;
+    private static final PrintTask TASK = PrintTask.builder()
+            .taskId("bench")
+            .priority(PrintTaskPriority.MEDIUM)
+            .build();
+
+    @Param({"linked", "priority", "ring-blocking", "ring-yielding"})
+    public String queueType;
+
+    private BlockingQueue<PrintTask> queue;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        switch (queueType) {
+            case "linked":
+                queue = new LinkedBlockingQueue<>(CAPACITY);
+                break;
+            case "priority":
+                queue = new PriorityAgingTaskQueue(CAPACITY, 5, TimeUnit.SECONDS);
+                break;
+            case "ring-blocking":
+                queue = new RingBufferTaskQueue(CAPACITY, RingBufferTaskQueue.WaitStrategy.BLOCKING);
+                break;
+            case "ring-yielding":
+                queue = new RingBufferTaskQueue(CAPACITY, RingBufferTaskQueue.WaitStrategy.YIELDING);
+                break;
+            default:
+                throw new IllegalArgumentException(queueType);
+        }
+    }
+
+    private boolean produce() throws InterruptedException {
+        return queue.offer(TASK, 10, TimeUnit.MILLISECONDS);
+    }
+
+    private PrintTask consume() throws InterruptedException {
+        return queue.poll(10, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("producers1")
+    @GroupThreads(1)
+    public boolean producers1Offer() throws InterruptedException {
+        return produce();
+    }
+
+    @Benchmark
+    @Group("producers1")
+    @GroupThreads(1)
+    public PrintTask producers1Take() throws InterruptedException {
+        return consume();
+    }
+
+    @Benchmark
+    @Group("producers4")
+    @GroupThreads(4)
+    public boolean producers4Offer() throws InterruptedException {
+        return produce();
+    }
+
+    @Benchmark
+    @Group("producers4")
+    @GroupThreads(1)
+    public PrintTask producers4Take() throws InterruptedException {
+        return consume();
+    }
+
+    @Benchmark
+    @Group("producers16")
+    @GroupThreads(16)
+    public boolean producers16Offer() throws InterruptedException {
+        return produce();
+    }
+
+    @Benchmark
+    @Group("producers16")
+    @GroupThreads(1)
+    public PrintTask producers16Take() throws InterruptedException {
+        return consume();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QueueBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
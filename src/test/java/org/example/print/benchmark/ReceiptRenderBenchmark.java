@@ -0,0 +1,134 @@
+package org.example.print.benchmark;
+
+import com.alibaba.fastjson2.JSONObject;
+import org.example.print.template.ReceiptRenderer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.UnsupportedEncodingException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 小票渲染对比：每张小票的耗时，配合GC profiler（main中已开启）看每次操作分配的字节数
+ * legacy: 原来的StringBuilder拼接 + getBytes("GBK")
+ * template: 编译后的模板直接编码进池化缓冲区
+ *
+ * 两者都从已解析的JSONObject开始，不计JSON解析
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReceiptRenderBenchmark {
+
+    private JSONObject data;
+    private ReceiptRenderer renderer;
+
+    @Setup
+    public void setUp() {
+        data = sampleOrder();
+        renderer = new ReceiptRenderer(new DefaultResourceLoader(), "classpath:print-templates/receipt.tpl");
+    }
+
+    @Benchmark
+    public byte[] legacy() throws UnsupportedEncodingException {
+        return legacyFormat(data).getBytes("GBK");
+    }
+
+    @Benchmark
+    public byte[] template() {
+        return renderer.render(data);
+    }
+
+    static JSONObject sampleOrder() {
+        JSONObject data = new JSONObject();
+        data.put("merchant", "赤壁老街烧烤");
+        data.put("day_index", "42");
+        data.put("orderNo", "202501141759160001");
+        data.put("orderTime", "2025-01-14 17:59:16");
+        data.put("goods", "羊肉串 x10, 烤茄子 x1, 烤韭菜 x2, 冰镇可乐 x3");
+        data.put("deliveryFee", "3.00");
+        data.put("totalPrice", "86.00");
+        data.put("actualPayment", "89.00");
+        data.put("paymentMethod", "微信支付");
+        data.put("delivery_status", "待配送");
+        data.put("customer", "张先生");
+        data.put("customerPhone", "138****0000");
+        data.put("address", "赤壁市蒲圻街道金鸾大道88号3栋2单元");
+        return data;
+    }
+
+    // 原UnifiedPrintService.formatPrintContent，渲染后再getBytes("GBK")
+    private static String legacyFormat(JSONObject data) {
+        StringBuilder content = new StringBuilder();
+
+
+        // ESC/POS 指令常量
+        final String ESC = "\u001B";
+        final String GS = "\u001D";
+        // 字体放大指令: ESC ! n  (n = 0-255, 位0-3表示字体，位4-7表示大小)
+        final String NORMAL_SIZE = ESC + "!0";  // 正常大小
+        final String LARGE_SIZE = ESC + "!16";  // 双倍大小
+
+
+        // 标题部分
+        content.append("         配送单\n");
+        content.append(LARGE_SIZE)  // 切换到大号字体
+                .append("指尖赤壁\n")
+                .append("========\n")
+                .append(data.getString("merchant")).append("\n")  // 商家名称也使用大号字体
+                .append(NORMAL_SIZE);  // 切换回正常字体
+
+        content.append("#").append(data.getString("day_index")).append("\n\n");
+
+        // 订单信息部分
+        content.append("订单号: ").append(data.getString("orderNo")).append("\n");
+        content.append("下单时间: ").append(data.getString("orderTime").substring(5, 16)).append("\n");
+        String goodsStr = data.getString("goods");
+        String[] goods = goodsStr.split(", ");  // 按逗号分割商品
+        for (String good : goods) {
+            content.append("  ").append(good).append("\n");  // 缩进显示每个商品
+        }
+        content.append("配送费: ").append(data.getString("deliveryFee")).append("\n");
+        content.append("商品总价: ￥").append(data.getString("totalPrice")).append("\n");
+        content.append("实付金额: ￥").append(data.getString("actualPayment")).append("\n");
+        content.append("支付方式: ").append(data.getString("paymentMethod")).append("\n");
+        content.append("配送状态: ").append(data.getString("delivery_status")).append("\n");
+
+        // 第一条分隔线
+        content.append("-----------------------------\n");
+
+        // 顾客信息部分
+        content.append("顾客信息: ")
+                .append(data.getString("customer"))
+                .append(" ")
+                .append(data.getString("customerPhone"))
+                .append("\n");
+        content.append("收货地址: ").append(data.getString("address")).append("\n");
+
+        // 打印时间和结束分隔线
+        content.append("打印时间: ").append(getCurrentTime()).append("\n");
+        content.append("-----------------------------\n\n\n");  // 留出撕纸空间
+
+        return content.toString();
+    }
+
+    private static String getCurrentTime() {
+        return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReceiptRenderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.print.component;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageRasterizerTest {
+
+    private static BufferedImage filled(int width, int height, Color color, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    // GS v 0指令头之后的位图数据中被打印(置1)的点数
+    private static int printedDots(byte[] bytes) {
+        int dots = 0;
+        for (int i = 8; i < bytes.length; i++) {
+            dots += Integer.bitCount(bytes[i] & 0xFF);
+        }
+        return dots;
+    }
+
+    @Test
+    @DisplayName("抖动后灰度与打印点比例一致，透明部分不打印")
+    void ditherKeepsTone() throws IOException {
+        ImageRasterizer rasterizer = new ImageRasterizer(1024 * 1024);
+
+        byte[] black = rasterizer.raster(png(filled(16, 16, Color.BLACK, BufferedImage.TYPE_INT_RGB)), 384);
+        assertEquals(16 * 16, printedDots(black));
+
+        byte[] transparent = rasterizer.raster(png(filled(16, 16, new Color(0, 0, 0, 0),
+                BufferedImage.TYPE_INT_ARGB)), 384);
+        assertEquals(0, printedDots(transparent));
+
+        byte[] gray = rasterizer.raster(png(filled(64, 64, new Color(128, 128, 128), BufferedImage.TYPE_INT_RGB)), 384);
+        double ratio = printedDots(gray) / (64.0 * 64);
+        assertTrue(ratio > 0.4 && ratio < 0.6, "打印点比例: " + ratio);
+    }
+
+    @Test
+    @DisplayName("宽于打印宽度的图片等比缩小")
+    void scaleToWidth() throws IOException {
+        ImageRasterizer rasterizer = new ImageRasterizer(1024 * 1024);
+        byte[] bytes = rasterizer.raster(png(filled(768, 200, Color.BLACK, BufferedImage.TYPE_INT_RGB)), 384);
+
+        // GS v 0 m xL xH yL yH：每行48字节，共100行
+        assertEquals(48, (bytes[4] & 0xFF) | (bytes[5] & 0xFF) << 8);
+        assertEquals(100, (bytes[6] & 0xFF) | (bytes[7] & 0xFF) << 8);
+    }
+
+    @Test
+    @DisplayName("按图片哈希和宽度缓存，预置图片按名称引用")
+    void cacheAndNamedImages() throws IOException {
+        ImageRasterizer rasterizer = new ImageRasterizer(1024 * 1024);
+        byte[] logo = png(filled(32, 8, Color.BLACK, BufferedImage.TYPE_INT_RGB));
+        rasterizer.register("logo", logo);
+
+        byte[] first = rasterizer.raster("logo", null, 384);
+        assertNotNull(first);
+        // 同一图片以Base64传入也命中缓存
+        assertSame(first, rasterizer.raster("img", "data:image/png;base64," + Base64.getEncoder().encodeToString(logo), 384));
+        assertSame(first, rasterizer.raster("img", "logo", 384));
+        assertNotSame(first, rasterizer.raster(logo, 16));
+        assertEquals(2L, rasterizer.getCacheStatus().get("hits"));
+        assertEquals(2, rasterizer.getCacheStatus().get("entries"));
+
+        assertNull(rasterizer.raster("qrcode", null, 384));
+        assertThrows(IllegalArgumentException.class, () -> rasterizer.raster("img", "not-an-image", 384));
+        assertThrows(IllegalArgumentException.class, () -> rasterizer.raster("img", "aGVsbG8=", 384));
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.print.component;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfRendererTest {
+
+    private static final int DOTS = 384;
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // 每页在不同高度画一条黑色横条，用于区分页序
+    private static byte[] pdf(int pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                PDPage page = new PDPage(new PDRectangle(192, 192));
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.addRect(0, 192 - 10 * (i + 1), 192, 10);
+                    content.fill();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    @Test
+    @DisplayName("页面缩放到打印机宽度并编码为GS v 0位图")
+    void rasterize() throws IOException {
+        PdfRenderer renderer = new PdfRenderer(executor, 1, 10, 1 << 20, 1 << 20);
+        byte[] bytes = renderer.render(pdf(1), DOTS);
+
+        // 192pt宽缩放到384点，高度同比例为384行，按256行分两段
+        assertEquals(0x1D, bytes[0]);
+        assertEquals('v', bytes[1]);
+        assertEquals('0', bytes[2]);
+        assertEquals(DOTS / 8, bytes[4] & 0xFF);
+        assertEquals(256, (bytes[6] & 0xFF) | (bytes[7] & 0xFF) << 8);
+        assertEquals(2 * 8 + 384 * DOTS / 8, bytes.length);
+        // 页面顶部的横条为黑色，下方为白色
+        assertEquals((byte) 0xFF, bytes[8 + 5 * DOTS / 8]);
+        assertEquals(0, bytes[8 + 100 * DOTS / 8]);
+    }
+
+    @Test
+    @DisplayName("并行渲染保持页序，再次打印命中缓存")
+    void parallelAndCached() throws IOException {
+        byte[] document = pdf(5);
+        byte[] sequential = new PdfRenderer(executor, 1, 10, 1 << 20, 1 << 20).render(document, DOTS);
+
+        PdfRenderer renderer = new PdfRenderer(executor, 3, 10, 1 << 20, 1 << 20);
+        assertArrayEquals(sequential, renderer.render(document, DOTS));
+        assertEquals(0L, renderer.getCacheStatus().get("hits"));
+
+        assertArrayEquals(sequential, renderer.render(document, DOTS));
+        assertEquals(5L, renderer.getCacheStatus().get("hits"));
+        assertEquals(5, renderer.getCacheStatus().get("entries"));
+    }
+
+    @Test
+    @DisplayName("同一文档按不同打印机宽度分别渲染和缓存")
+    void cachedPerWidth() throws IOException {
+        byte[] document = pdf(1);
+        PdfRenderer renderer = new PdfRenderer(executor, 1, 10, 1 << 20, 1 << 20);
+        byte[] narrow = renderer.render(document, DOTS);
+        byte[] wide = renderer.render(document, 576);
+
+        assertEquals(0L, renderer.getCacheStatus().get("hits"));
+        assertEquals(576 / 8, wide[4] & 0xFF);
+        // 高度同比例为576行，按256行分三段
+        assertEquals(3 * 8 + 576 * 576 / 8, wide.length);
+        assertArrayEquals(narrow, renderer.render(document, DOTS));
+        assertArrayEquals(wide, renderer.render(document, 576));
+        assertEquals(2L, renderer.getCacheStatus().get("hits"));
+    }
+
+    @Test
+    @DisplayName("缓存按字节数淘汰")
+    void cacheBounded() throws IOException {
+        int pageBytes = 2 * 8 + 384 * DOTS / 8;
+        PdfRenderer renderer = new PdfRenderer(executor, 1, 10, pageBytes * 2L, 1 << 20);
+        renderer.render(pdf(4), DOTS);
+
+        assertEquals(2, renderer.getCacheStatus().get("entries"));
+        assertTrue((Long) renderer.getCacheStatus().get("bytes") <= pageBytes * 2L);
+    }
+
+    @Test
+    @DisplayName("超过页数上限的文档拒绝渲染")
+    void tooManyPages() throws IOException {
+        PdfRenderer renderer = new PdfRenderer(executor, 1, 2, 1 << 20, 1 << 20);
+        assertThrows(IOException.class, () -> renderer.render(pdf(3), DOTS));
+    }
+}
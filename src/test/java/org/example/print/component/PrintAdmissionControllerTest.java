@@ -0,0 +1,198 @@
+package org.example.print.component;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskStatus;
+import org.example.print.config.JacksonConfig;
+import org.example.print.config.PrinterGroupProperties;
+import org.example.print.controller.PrintMessageController;
+import org.example.print.service.PrintTaskNotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrintAdmissionControllerTest {
+
+    private static final String PRINTER = "GP-C58 Series";
+
+    @TempDir
+    File baseDir;
+
+    private PrintQueue printQueue;
+    private PrintAdmissionController admissionController;
+    private PrintQueueManager printQueueManager;
+    // 推送到/topic/print-status的水位事件
+    private final List<Map<String, Object>> events = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        printQueue = new PrintQueue(PRINTER, 100, 5000);
+        PrintTaskNotificationService notificationService = new PrintTaskNotificationService(null) {
+            @Override
+            public void notifyAll(PrintTask task) {
+            }
+
+            @Override
+            public void notifyClient(PrintTask task) {
+            }
+
+            @Override
+            public void notifyRemoteServer(String taskId, PrintTaskStatus status) {
+            }
+
+            @Override
+            public void sendWebSocketMessage(String destination, Object payload) {
+                events.add((Map<String, Object>) payload);
+            }
+        };
+
+        admissionController = new PrintAdmissionController(printQueue, notificationService);
+        ReflectionTestUtils.setField(admissionController, "highWatermark", 3);
+        ReflectionTestUtils.setField(admissionController, "lowWatermark", 1);
+        ReflectionTestUtils.setField(admissionController, "retryAfterSeconds", 7);
+
+        PrintTaskDeduplicator deduplicator = new PrintTaskDeduplicator();
+        ReflectionTestUtils.setField(deduplicator, "enabled", true);
+        ReflectionTestUtils.setField(deduplicator, "windowSeconds", 600L);
+        ReflectionTestUtils.setField(deduplicator, "maxEntries", 100);
+        deduplicator.init();
+
+        PrinterCircuitBreaker circuitBreaker = new PrinterCircuitBreaker(name -> true, event -> { }, 3, 30000);
+        PrinterRouter printerRouter = new PrinterRouter(printQueue, new PrinterGroupProperties(), circuitBreaker);
+        printQueueManager = new PrintQueueManager(printQueue, null,
+                new PrintTaskPersistence(new JacksonConfig().objectMapper(), baseDir),
+                new PrintMetrics(), notificationService,
+                new PrintRetryScheduler(printQueue, printerRouter), admissionController,
+                new PrintTaskIndex(), deduplicator, printerRouter, circuitBreaker);
+    }
+
+    private static PrintTask task(String id) {
+        return PrintTask.builder().taskId(id).content("{\"orderNo\":\"" + id + "\"}").printerName(PRINTER).build();
+    }
+
+    private void fillToHighWatermark() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(printQueue.offer(task("queued-" + i)));
+        }
+    }
+
+    @Test
+    @DisplayName("达到高水位后拒绝，回落到低水位之前保持拒绝，回落后恢复并各推送一次事件")
+    void hysteresis() {
+        assertTrue(admissionController.tryAdmit(PRINTER));
+        fillToHighWatermark();
+
+        assertFalse(admissionController.tryAdmit(PRINTER));
+        assertFalse(admissionController.tryAdmit(PRINTER));
+        assertTrue(admissionController.getBusyPrinters().contains(PRINTER));
+        assertEquals(1, events.size());
+        assertEquals("HIGH", events.get(0).get("watermark"));
+        assertEquals(false, events.get(0).get("accepting"));
+        assertEquals(3, events.get(0).get("queueSize"));
+
+        // 深度2已低于高水位但仍高于低水位，继续拒绝
+        printQueue.poll();
+        assertFalse(admissionController.tryAdmit(PRINTER));
+        assertEquals(1, events.size());
+
+        printQueue.poll();
+        assertTrue(admissionController.tryAdmit(PRINTER));
+        assertFalse(admissionController.getBusyPrinters().contains(PRINTER));
+        assertEquals(2, events.size());
+        assertEquals("LOW", events.get(1).get("watermark"));
+        assertEquals(true, events.get(1).get("accepting"));
+        assertEquals(7, events.get(1).get("retryAfter"));
+    }
+
+    @Test
+    @DisplayName("没有新任务提交时定时检查也能发现队列回落到低水位")
+    void refreshWatermarks() {
+        fillToHighWatermark();
+        assertFalse(admissionController.tryAdmit(PRINTER));
+
+        admissionController.refreshWatermarks();
+        assertTrue(admissionController.getBusyPrinters().contains(PRINTER));
+
+        printQueue.poll();
+        printQueue.poll();
+        admissionController.refreshWatermarks();
+        assertTrue(admissionController.getBusyPrinters().isEmpty());
+        assertEquals("LOW", events.get(events.size() - 1).get("watermark"));
+    }
+
+    @Test
+    @DisplayName("高水位时提交任务抛出带Retry-After的异常，且不占用去重记录")
+    void rejectWithRetryAfter() {
+        fillToHighWatermark();
+
+        PrintQueueManager.PrintQueueFullException e = assertThrows(PrintQueueManager.PrintQueueFullException.class,
+                () -> printQueueManager.addPrintTask(task("t1"), "key-1"));
+        assertEquals(7, e.getRetryAfterSeconds());
+        assertEquals(3, printQueue.size(PRINTER));
+
+        // 队列回落后以相同的幂等键重新提交可以入队
+        printQueue.poll();
+        printQueue.poll();
+        assertTrue(printQueueManager.addPrintTask(task("t1"), "key-1"));
+        assertEquals(2, printQueue.size(PRINTER));
+    }
+
+    @Test
+    @DisplayName("WebSocket处理器在队列繁忙时回复busy消息")
+    void webSocketBusyFrame() {
+        PrintWebSocketHandler handler = new PrintWebSocketHandler();
+        ReflectionTestUtils.setField(handler, "printQueueManager", printQueueManager);
+        List<String> sent = new ArrayList<>();
+        WebSocketSession session = (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+                new Class<?>[]{WebSocketSession.class}, (proxy, method, args) -> {
+                    if ("sendMessage".equals(method.getName())) {
+                        sent.add(((TextMessage) args[0]).getPayload());
+                        return null;
+                    }
+                    if ("getId".equals(method.getName())) {
+                        return "s1";
+                    }
+                    return null;
+                });
+        fillToHighWatermark();
+
+        handler.handleTextMessage(session, new TextMessage("{\"data\":[{\"orderNo\":\"A001\"}]}"));
+
+        assertEquals(1, sent.size());
+        JSONObject frame = JSON.parseObject(sent.get(0));
+        assertEquals("busy", frame.getString("type"));
+        assertEquals(7, frame.getIntValue("retryAfter"));
+    }
+
+    @Test
+    @DisplayName("STOMP打印请求在队列繁忙时返回busy响应")
+    void stompBusyResponse() {
+        PrintMessageController controller = new PrintMessageController(printQueueManager, null);
+        fillToHighWatermark();
+
+        Map<String, Object> request = new HashMap<>();
+        request.put("content", "{\"orderNo\":\"A002\"}");
+        request.put("printerName", PRINTER);
+        Map<String, Object> response = controller.handlePrintRequest(request);
+
+        assertEquals(false, response.get("success"));
+        assertEquals("busy", response.get("type"));
+        assertEquals(7, response.get("retryAfter"));
+    }
+}
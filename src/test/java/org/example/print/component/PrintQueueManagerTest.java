@@ -0,0 +1,247 @@
+package org.example.print.component;
+
+import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskStatus;
+import org.example.print.config.JacksonConfig;
+import org.example.print.config.PrinterGroupProperties;
+import org.example.print.service.PrintTaskNotificationService;
+import org.example.print.service.UnifiedPrintService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrintQueueManagerTest {
+
+    private static final String PRINTER = "p1";
+
+    @TempDir
+    File baseDir;
+
+    private PrintQueue printQueue;
+    private PrintRetryScheduler retryScheduler;
+    private PrintTaskPersistence persistence;
+    private PrintQueueManager manager;
+    private PrinterCircuitBreaker circuitBreaker;
+    // 连续失败多少个作业后熔断
+    private int failureThreshold = 3;
+    // executeBatch返回的结果，由各测试决定何时完成
+    private CompletableFuture<List<UnifiedPrintService.PrintResult>> batchResult = new CompletableFuture<>();
+
+    private void setUp(String queueType) {
+        printQueue = new PrintQueue(PRINTER, 100, 5000, queueType, "blocking");
+        PrintTaskNotificationService notificationService = new PrintTaskNotificationService(null) {
+            @Override
+            public void notifyAll(PrintTask task) {
+            }
+
+            @Override
+            public void notifyClient(PrintTask task) {
+            }
+
+            @Override
+            public void notifyRemoteServer(String taskId, PrintTaskStatus status) {
+            }
+
+            @Override
+            public void sendWebSocketMessage(String destination, Object payload) {
+            }
+        };
+        PrintAdmissionController admissionController = new PrintAdmissionController(printQueue, notificationService);
+        ReflectionTestUtils.setField(admissionController, "highWatermark", 100);
+        ReflectionTestUtils.setField(admissionController, "lowWatermark", 50);
+
+        PrintTaskDeduplicator deduplicator = new PrintTaskDeduplicator();
+        ReflectionTestUtils.setField(deduplicator, "enabled", true);
+        ReflectionTestUtils.setField(deduplicator, "windowSeconds", 600L);
+        ReflectionTestUtils.setField(deduplicator, "maxEntries", 100);
+        deduplicator.init();
+
+        circuitBreaker = new PrinterCircuitBreaker(name -> true, event -> { }, failureThreshold, 30000);
+        PrinterRouter printerRouter = new PrinterRouter(printQueue, new PrinterGroupProperties(), circuitBreaker);
+        // 不启动释放线程，等待重试的任务留在调度器中
+        retryScheduler = new PrintRetryScheduler(printQueue, printerRouter);
+        persistence = new PrintTaskPersistence(new JacksonConfig().objectMapper(), baseDir);
+        UnifiedPrintService printService = new UnifiedPrintService() {
+            @Override
+            public CompletableFuture<List<PrintResult>> executeBatch(List<PrintTask> tasks) {
+                return batchResult;
+            }
+        };
+
+        manager = new PrintQueueManager(printQueue, printService, persistence, new PrintMetrics(),
+                notificationService, retryScheduler, admissionController, new PrintTaskIndex(),
+                deduplicator, printerRouter, circuitBreaker);
+        ReflectionTestUtils.setField(manager, "maxRetry", 3);
+        ReflectionTestUtils.setField(manager, "retryBaseDelay", 10000L);
+        ReflectionTestUtils.setField(manager, "retryMaxJitter", 0L);
+    }
+
+    private static PrintTask task(String id) {
+        return PrintTask.builder().taskId(id).content("{\"orderNo\":\"" + id + "\"}").printerName(PRINTER).build();
+    }
+
+    private boolean isPending(String taskId) {
+        return persistence.loadPendingTasks().stream().anyMatch(t -> taskId.equals(t.getTaskId()));
+    }
+
+    // 从队列取出任务并交给打印服务，模拟PrintTaskDispatcher
+    private CompletableFuture<Void> dispatch(String expectedTaskId) throws InterruptedException {
+        PrintTask task = printQueue.poll(PRINTER, 1, TimeUnit.SECONDS);
+        assertNotNull(task);
+        assertEquals(expectedTaskId, task.getTaskId());
+        return manager.processBatch(Collections.singletonList(task));
+    }
+
+    @Test
+    @DisplayName("排队中的任务取消后留下墓碑，各种队列实现出队时都会跳过")
+    void cancelQueuedTask() throws InterruptedException {
+        for (String queueType : new String[]{"priority", "fifo", "ring"}) {
+            setUp(queueType);
+            manager.addPrintTask(task("a"));
+            manager.addPrintTask(task("b"));
+            manager.addPrintTask(task("c"));
+            assertTrue(isPending("b"), queueType);
+
+            assertEquals(PrintTaskIndex.CancelResult.CANCELLED, manager.cancelTask("b"), queueType);
+            assertFalse(isPending("b"), queueType);
+            // 重复取消按找不到处理
+            assertEquals(PrintTaskIndex.CancelResult.NOT_FOUND, manager.cancelTask("b"), queueType);
+
+            assertEquals("a", printQueue.take(PRINTER).getTaskId(), queueType);
+            assertEquals("c", printQueue.poll(PRINTER, 1, TimeUnit.SECONDS).getTaskId(), queueType);
+            assertNull(printQueue.poll(PRINTER, 50, TimeUnit.MILLISECONDS), queueType);
+        }
+    }
+
+    @Test
+    @DisplayName("等待重试的任务取消后留下墓碑，退避到期时不再放回队列")
+    void cancelRetryPendingTask() throws InterruptedException {
+        setUp("priority");
+        ReflectionTestUtils.setField(manager, "retryBaseDelay", 100L);
+        manager.addPrintTask(task("a"));
+        batchResult.complete(Collections.singletonList(new UnifiedPrintService.PrintResult(false, "打印失败")));
+        dispatch("a").join();
+
+        assertEquals(1, retryScheduler.size());
+        assertTrue(isPending("a"));
+
+        assertEquals(PrintTaskIndex.CancelResult.CANCELLED, manager.cancelTask("a"));
+        assertFalse(isPending("a"));
+
+        retryScheduler.start();
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (retryScheduler.size() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, retryScheduler.size());
+            assertNull(printQueue.poll(PRINTER, 50, TimeUnit.MILLISECONDS));
+        } finally {
+            retryScheduler.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("正在打印的任务不能取消，打印结束后按完成处理")
+    void cannotCancelPrintingTask() throws InterruptedException {
+        setUp("priority");
+        PrintTask task = task("a");
+        manager.addPrintTask(task);
+        CompletableFuture<Void> processed = dispatch("a");
+
+        assertEquals(PrintTaskIndex.CancelResult.PRINTING, manager.cancelTask("a"));
+        assertEquals(PrintTaskStatus.PRINTING, task.getStatus());
+
+        batchResult.complete(Collections.singletonList(new UnifiedPrintService.PrintResult(true, "打印成功")));
+        processed.join();
+        assertEquals(PrintTaskStatus.COMPLETED, task.getStatus());
+        assertEquals(PrintTaskIndex.CancelResult.NOT_FOUND, manager.cancelTask("a"));
+        assertEquals(0, retryScheduler.size());
+
+        // 打印服务记录完成后，取消返回已完成
+        persistence.markTaskAsCompleted(task);
+        assertEquals(PrintTaskIndex.CancelResult.COMPLETED, manager.cancelTask("a"));
+    }
+
+    @Test
+    @DisplayName("最终失败的任务撤销去重记录，相同内容和幂等键可以重新提交")
+    void terminalFailureForgetsDedupe() throws InterruptedException {
+        setUp("priority");
+        ReflectionTestUtils.setField(manager, "maxRetry", 1);
+        assertTrue(manager.addPrintTask(task("a"), "key-1"));
+        assertFalse(manager.addPrintTask(task("a"), "key-1"));
+
+        batchResult.complete(Collections.singletonList(new UnifiedPrintService.PrintResult(false, "打印失败")));
+        dispatch("a").join();
+        assertEquals(0, retryScheduler.size());
+
+        assertTrue(manager.addPrintTask(task("a"), "key-1"));
+    }
+
+    @Test
+    @DisplayName("取消的任务撤销去重记录，相同内容和幂等键可以重新提交")
+    void cancelForgetsDedupe() {
+        setUp("priority");
+        assertTrue(manager.addPrintTask(task("a"), "key-1"));
+        assertFalse(manager.addPrintTask(task("b"), "key-1"));
+
+        assertEquals(PrintTaskIndex.CancelResult.CANCELLED, manager.cancelTask("a"));
+        assertTrue(manager.addPrintTask(task("a"), "key-1"));
+    }
+
+    // 三个任务合并为一个作业，作业因打印机故障失败
+    private List<PrintTask> failBatchWithPrinterFault() throws InterruptedException {
+        for (String id : new String[]{"a", "b", "c"}) {
+            manager.addPrintTask(task(id));
+        }
+        List<PrintTask> batch = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            batch.add(printQueue.poll(PRINTER, 1, TimeUnit.SECONDS));
+        }
+        UnifiedPrintService.PrintResult fault = new UnifiedPrintService.PrintResult(false, "打印机离线", true);
+        batchResult.complete(Arrays.asList(fault, fault, fault));
+        manager.processBatch(batch).join();
+        return batch;
+    }
+
+    @Test
+    @DisplayName("一个作业失败只计一次熔断失败，未熔断时整批任务都进入重试")
+    void batchFailureCountedOnce() throws InterruptedException {
+        setUp("priority");
+        List<PrintTask> batch = failBatchWithPrinterFault();
+
+        assertEquals(PrinterCircuitBreaker.State.CLOSED, circuitBreaker.getState(PRINTER));
+        assertEquals(3, retryScheduler.size());
+        for (PrintTask task : batch) {
+            assertEquals(PrintTaskStatus.FAILED, task.getStatus());
+            assertEquals(1, task.getRetryCount());
+        }
+    }
+
+    @Test
+    @DisplayName("作业失败导致熔断时整批任务都放回队列，不消耗重试次数")
+    void batchParkedWhenOpen() throws InterruptedException {
+        failureThreshold = 1;
+        setUp("priority");
+        List<PrintTask> batch = failBatchWithPrinterFault();
+
+        assertEquals(PrinterCircuitBreaker.State.OPEN, circuitBreaker.getState(PRINTER));
+        assertEquals(0, retryScheduler.size());
+        assertEquals(3, printQueue.size(PRINTER));
+        for (PrintTask task : batch) {
+            assertEquals(PrintTaskStatus.PENDING, task.getStatus());
+            assertEquals(0, task.getRetryCount());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.print.component;
+
+import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskStatus;
+import org.example.print.config.PrinterGroupProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrintRetrySchedulerTest {
+
+    private PrintQueue printQueue;
+    private PrintRetryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        printQueue = new PrintQueue("p", 100, 5000);
+        PrinterCircuitBreaker circuitBreaker = new PrinterCircuitBreaker(name -> true, event -> { }, 3, 30000);
+        scheduler = new PrintRetryScheduler(printQueue,
+                new PrinterRouter(printQueue, new PrinterGroupProperties(), circuitBreaker));
+        scheduler.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+    }
+
+    private static PrintTask failed(String id) {
+        return PrintTask.builder().taskId(id).printerName("p").status(PrintTaskStatus.FAILED).build();
+    }
+
+    @Test
+    @DisplayName("按到期时间而不是调度顺序放回队列，到期前不出现在队列中")
+    void releaseInDelayOrder() throws InterruptedException {
+        long start = System.nanoTime();
+        scheduler.schedule(failed("late"), 300, TimeUnit.MILLISECONDS);
+        scheduler.schedule(failed("early"), 100, TimeUnit.MILLISECONDS);
+        assertEquals(2, scheduler.size());
+        assertNull(printQueue.poll("p", 50, TimeUnit.MILLISECONDS));
+
+        PrintTask first = printQueue.poll("p", 2, TimeUnit.SECONDS);
+        assertEquals("early", first.getTaskId());
+        assertEquals(PrintTaskStatus.PENDING, first.getStatus());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+
+        PrintTask second = printQueue.poll("p", 2, TimeUnit.SECONDS);
+        assertEquals("late", second.getTaskId());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 300);
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    @DisplayName("等待期间被取消的任务不再放回队列")
+    void cancelledTaskNotReleased() throws InterruptedException {
+        PrintTask task = failed("t");
+        scheduler.schedule(task, 50, TimeUnit.MILLISECONDS);
+        task.setStatus(PrintTaskStatus.CANCELLED);
+
+        assertNull(printQueue.poll("p", 300, TimeUnit.MILLISECONDS));
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    @DisplayName("退避时间按2^n倍增长，抖动落在[0, maxJitter)内")
+    void backoffWithJitterBounds() {
+        for (int i = 0; i < 200; i++) {
+            for (int retry = 1; retry <= 3; retry++) {
+                long base = (1L << retry) * 1000;
+                long delay = PrintRetryScheduler.backoffMillis(retry, 1000, 500);
+                assertTrue(delay >= base && delay < base + 500, "重试" + retry + ": " + delay);
+            }
+        }
+        // 不配置抖动时没有随机部分
+        assertEquals(4000, PrintRetryScheduler.backoffMillis(2, 1000, 0));
+    }
+}
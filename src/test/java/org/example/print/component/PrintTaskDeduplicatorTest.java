@@ -0,0 +1,60 @@
+package org.example.print.component;
+
+import org.example.print.bean.PrintTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrintTaskDeduplicatorTest {
+
+    private PrintTaskDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        deduplicator = new PrintTaskDeduplicator();
+        ReflectionTestUtils.setField(deduplicator, "enabled", true);
+        ReflectionTestUtils.setField(deduplicator, "windowSeconds", 600L);
+        ReflectionTestUtils.setField(deduplicator, "maxEntries", 4);
+        ReflectionTestUtils.setField(deduplicator, "bloomEnabled", true);
+        ReflectionTestUtils.setField(deduplicator, "bloomExpectedInsertions", 1000);
+        ReflectionTestUtils.setField(deduplicator, "bloomFpp", 0.000001);
+        deduplicator.init();
+    }
+
+    private static PrintTask task(String id, String content) {
+        return PrintTask.builder().taskId(id).content(content).printerName("p1").build();
+    }
+
+    @Test
+    @DisplayName("相同taskId、相同内容或相同幂等键均判为重复")
+    void detectsDuplicates() {
+        assertTrue(deduplicator.checkAndRecord(task("a", "order-1"), null));
+        assertFalse(deduplicator.checkAndRecord(task("a", "order-2"), null));
+        assertFalse(deduplicator.checkAndRecord(task("b", "order-1"), null));
+        assertTrue(deduplicator.checkAndRecord(task("c", "order-3"), "key-1"));
+        assertFalse(deduplicator.checkAndRecord(task("d", "order-4"), "key-1"));
+    }
+
+    @Test
+    @DisplayName("撤销记录后可以重新提交")
+    void forgetAllowsResubmit() {
+        PrintTask task = task("a", "order-1");
+        assertTrue(deduplicator.checkAndRecord(task, "key-1"));
+        deduplicator.forget(task, "key-1");
+        assertTrue(deduplicator.checkAndRecord(task, "key-1"));
+    }
+
+    @Test
+    @DisplayName("被LRU容量挤出的key由布隆过滤器兜底")
+    void bloomFilterCoversEvictedKeys() {
+        assertTrue(deduplicator.checkAndRecord(task("a", "order-1"), null));
+        // 每个任务2个key，容量4，再加两个任务后a的key被挤出
+        assertTrue(deduplicator.checkAndRecord(task("b", "order-2"), null));
+        assertTrue(deduplicator.checkAndRecord(task("c", "order-3"), null));
+        assertEquals(4, deduplicator.size());
+        assertFalse(deduplicator.checkAndRecord(task("a", "order-9"), null));
+    }
+}
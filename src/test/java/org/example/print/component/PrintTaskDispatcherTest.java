@@ -0,0 +1,81 @@
+package org.example.print.component;
+
+import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskStatus;
+import org.example.print.config.PrinterGroupProperties;
+import org.example.print.config.PrinterRateLimitProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrintTaskDispatcherTest {
+
+    private PrintQueue printQueue;
+    private PrintRetryScheduler retryScheduler;
+    private PrintTaskDispatcher dispatcher;
+    // 处理过的任务
+    private final List<String> handled = new CopyOnWriteArrayList<>();
+    private final CountDownLatch allHandled = new CountDownLatch(2);
+    // 线程池前几次提交时拒绝
+    private final AtomicInteger rejections = new AtomicInteger(1);
+
+    @BeforeEach
+    void setUp() {
+        printQueue = new PrintQueue("p1", 100, 5000);
+        PrinterCircuitBreaker circuitBreaker = new PrinterCircuitBreaker(name -> true, event -> { }, 3, 30000);
+        retryScheduler = new PrintRetryScheduler(printQueue,
+                new PrinterRouter(printQueue, new PrinterGroupProperties(), circuitBreaker));
+        retryScheduler.start();
+        Executor executor = command -> {
+            if (rejections.getAndDecrement() > 0) {
+                throw new RejectedExecutionException("打印线程池已满");
+            }
+            command.run();
+        };
+        dispatcher = new PrintTaskDispatcher(printQueue, executor, batch -> {
+            batch.forEach(task -> {
+                handled.add(task.getTaskId());
+                allHandled.countDown();
+            });
+            return CompletableFuture.completedFuture(null);
+        }, new PrinterRateLimiter(printQueue, new PrintMetrics(), new PrinterRateLimitProperties()),
+                circuitBreaker, retryScheduler, 1, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+        retryScheduler.stop();
+    }
+
+    private static PrintTask task(String id) {
+        return PrintTask.builder().taskId(id).printerName("p1").status(PrintTaskStatus.PENDING).build();
+    }
+
+    @Test
+    @DisplayName("线程池拒绝的任务交给重试调度器稍后放回队列，工作线程不等待，继续处理后面的任务")
+    void rejectedBatchRequeued() throws InterruptedException {
+        dispatcher.start();
+        printQueue.offer(task("rejected"));
+        printQueue.offer(task("next"));
+
+        assertTrue(allHandled.await(5, TimeUnit.SECONDS));
+        // 被拒绝的任务等待期间，工作线程已经处理了后面的任务
+        assertEquals("next", handled.get(0));
+        assertEquals("rejected", handled.get(1));
+        assertEquals(0, retryScheduler.size());
+        assertEquals(0, printQueue.size());
+    }
+}
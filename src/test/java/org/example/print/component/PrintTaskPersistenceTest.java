@@ -0,0 +1,69 @@
+package org.example.print.component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskStatus;
+import org.example.print.config.JacksonConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrintTaskPersistenceTest {
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+    @TempDir
+    File baseDir;
+
+    private static PrintTask task(String taskId) {
+        return PrintTask.builder()
+                .taskId(taskId)
+                .content("{\"orderNo\":\"A001\"}")
+                .status(PrintTaskStatus.PENDING)
+                .createTime(LocalDateTime.of(2025, 1, 14, 17, 59, 16))
+                .printerName("GP-C58 Series")
+                .build();
+    }
+
+    @Test
+    @DisplayName("完成的任务写入已完成目录并可按taskId查找")
+    void markCompletedAndFind() {
+        PrintTaskPersistence persistence = new PrintTaskPersistence(objectMapper, baseDir);
+        PrintTask task = task("order_1001");
+        persistence.savePendingTask(task);
+
+        task.setStatus(PrintTaskStatus.COMPLETED);
+        persistence.markTaskAsCompleted(task);
+
+        assertEquals(0, new File(baseDir, "print_tasks").list().length);
+        PrintTask found = persistence.findCompletedTask("order_1001");
+        assertNotNull(found);
+        assertEquals(PrintTaskStatus.COMPLETED, found.getStatus());
+        assertEquals(task.getContent(), found.getContent());
+        assertNull(persistence.findCompletedTask("order_1002"));
+    }
+
+    @Test
+    @DisplayName("启动时按文件名重建索引，同一任务取最近一次")
+    void rebuildIndexOnStartup() {
+        PrintTaskPersistence first = new PrintTaskPersistence(objectMapper, baseDir);
+        PrintTask task = task("order_1001");
+        task.setStatus(PrintTaskStatus.COMPLETED);
+        first.markTaskAsCompleted(task);
+        // 重打后再次完成
+        PrintTask reprinted = task("order_1001");
+        reprinted.setCreateTime(task.getCreateTime().plusHours(1));
+        reprinted.setPrinterName("Kitchen");
+        reprinted.setStatus(PrintTaskStatus.COMPLETED);
+        first.markTaskAsCompleted(reprinted);
+
+        PrintTaskPersistence restarted = new PrintTaskPersistence(objectMapper, baseDir);
+        assertEquals(1, restarted.getCompletedCount());
+        assertEquals("Kitchen", restarted.findCompletedTask("order_1001").getPrinterName());
+    }
+}
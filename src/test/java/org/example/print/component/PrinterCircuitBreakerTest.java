@@ -0,0 +1,70 @@
+package org.example.print.component;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrinterCircuitBreakerTest {
+
+    @Test
+    @DisplayName("连续失败后熔断，探测通过后半开，试打成功后恢复")
+    void openProbeHalfOpenClose() throws InterruptedException {
+        AtomicBoolean printerOnline = new AtomicBoolean(false);
+        AtomicInteger probes = new AtomicInteger();
+        List<String> events = new ArrayList<>();
+        PrinterCircuitBreaker breaker = new PrinterCircuitBreaker(
+                name -> {
+                    probes.incrementAndGet();
+                    return printerOnline.get();
+                },
+                event -> events.add((String) event.get("state")),
+                2, 20);
+
+        assertEquals(PrinterCircuitBreaker.State.CLOSED, breaker.recordFailure("p"));
+        assertEquals(PrinterCircuitBreaker.State.OPEN, breaker.recordFailure("p"));
+
+        // 打印机恢复前一直阻塞并周期性探测
+        Thread waiter = new Thread(() -> {
+            try {
+                breaker.awaitPermit("p");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        Thread.sleep(100);
+        assertTrue(waiter.isAlive());
+        assertTrue(probes.get() >= 2);
+
+        printerOnline.set(true);
+        waiter.join(2000);
+        assertFalse(waiter.isAlive());
+        assertEquals(PrinterCircuitBreaker.State.HALF_OPEN, breaker.getState("p"));
+
+        breaker.recordSuccess("p");
+        assertEquals(PrinterCircuitBreaker.State.CLOSED, breaker.getState("p"));
+        assertEquals(Arrays.asList("OPEN", "HALF_OPEN", "CLOSED"), events);
+    }
+
+    @Test
+    @DisplayName("半开时试打失败立即重新熔断")
+    void halfOpenFailureReopens() throws InterruptedException {
+        PrinterCircuitBreaker breaker = new PrinterCircuitBreaker(name -> true, event -> { }, 1, 0);
+        breaker.recordFailure("p");
+        breaker.awaitPermit("p");
+        assertEquals(PrinterCircuitBreaker.State.HALF_OPEN, breaker.getState("p"));
+
+        assertEquals(PrinterCircuitBreaker.State.OPEN, breaker.recordFailure("p"));
+        Map<String, Object> status = breaker.getStatus().get("p");
+        assertEquals("OPEN", status.get("state"));
+        assertEquals(2, status.get("consecutiveFailures"));
+    }
+}
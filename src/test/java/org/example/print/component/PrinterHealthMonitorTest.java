@@ -0,0 +1,101 @@
+package org.example.print.component;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.print.PrintService;
+import javax.print.attribute.standard.PrinterState;
+import javax.print.attribute.standard.PrinterStateReason;
+import javax.print.attribute.standard.PrinterStateReasons;
+import javax.print.attribute.standard.Severity;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrinterHealthMonitorTest {
+
+    private static PrintService printer(String name, AtomicReference<PrinterStateReasons> reasons) {
+        return (PrintService) Proxy.newProxyInstance(PrintService.class.getClassLoader(),
+                new Class<?>[]{PrintService.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return name;
+                        case "getAttribute":
+                            return args[0] == PrinterState.class ? PrinterState.IDLE : reasons.get();
+                        case "hashCode":
+                            return name.hashCode();
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    @Test
+    @DisplayName("快照按采样结果判断就绪，错误级别的原因视为不可用，探测立即更新快照")
+    void snapshotReflectsStateReasons() {
+        AtomicReference<PrinterStateReasons> reasons = new AtomicReference<>(new PrinterStateReasons());
+        PrintService service = printer("GP-C58 Series", reasons);
+        PrinterRegistry registry = new PrinterRegistry(() -> new PrintService[]{service},
+                event -> { }, Runnable::run, 0);
+        registry.init();
+        PrinterHealthMonitor monitor = new PrinterHealthMonitor(registry);
+
+        monitor.sampleAll();
+        assertTrue(monitor.isReady("GP-C58 Series"));
+        assertEquals("idle", monitor.getSnapshot().get("GP-C58 Series").getState());
+        // 未采样的打印机视为就绪
+        assertTrue(monitor.isReady("unknown"));
+
+        PrinterStateReasons paperOut = new PrinterStateReasons();
+        paperOut.put(PrinterStateReason.MEDIA_EMPTY, Severity.ERROR);
+        reasons.set(paperOut);
+        // 下一次采样前快照不变
+        assertTrue(monitor.isReady("GP-C58 Series"));
+        assertFalse(monitor.probe(service).isReady());
+        assertFalse(monitor.isReady("GP-C58 Series"));
+        assertEquals(1, monitor.getSnapshot().get("GP-C58 Series").getReasons().size());
+    }
+
+    @Test
+    @DisplayName("并发探测不同打印机时各自的结果都保留在快照中")
+    void concurrentProbesNotLost() throws InterruptedException {
+        int printers = 8;
+        List<PrintService> services = new ArrayList<>();
+        for (int i = 0; i < printers; i++) {
+            services.add(printer("printer-" + i, new AtomicReference<>(new PrinterStateReasons())));
+        }
+        PrinterRegistry registry = new PrinterRegistry(() -> services.toArray(new PrintService[0]),
+                event -> { }, Runnable::run, 0);
+        registry.init();
+
+        for (int round = 0; round < 50; round++) {
+            // 每轮从空快照开始，丢失的更新会直接体现在快照大小上
+            PrinterHealthMonitor monitor = new PrinterHealthMonitor(registry);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (PrintService service : services) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    monitor.probe(service);
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(printers, monitor.getSnapshot().size());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.print.component;
+
+import org.example.print.config.PrinterRateLimitProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrinterRateLimiterTest {
+
+    private static PrinterRateLimiter limiter(PrintMetrics metrics, double jobsPerSecond, long bytesPerSecond) {
+        PrinterRateLimitProperties properties = new PrinterRateLimitProperties();
+        properties.setJobsPerSecond(jobsPerSecond);
+        properties.setBytesPerSecond(bytesPerSecond);
+        return new PrinterRateLimiter(new PrintQueue("p", 10, 5000), metrics, properties);
+    }
+
+    @Test
+    @DisplayName("作业令牌用完后等待补充，等待时间计入统计")
+    void jobsPerSecond() throws InterruptedException {
+        PrintMetrics metrics = new PrintMetrics();
+        PrinterRateLimiter limiter = limiter(metrics, 20, 0);
+
+        limiter.awaitPermit("p");
+        assertEquals(20, limiter.tryAcquireJobs("p", 100));
+        assertEquals(0, limiter.tryAcquireJobs("p", 1));
+
+        long start = System.nanoTime();
+        limiter.awaitPermit("p");
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(waitedMillis >= 30, "应等待约50ms, 实际: " + waitedMillis);
+        assertTrue(metrics.getThrottledMillisByPrinter().get("p") >= 30);
+
+        // 未使用的令牌可以归还
+        int acquired = limiter.tryAcquireJobs("p", 1);
+        limiter.refundJobs("p", acquired);
+        assertEquals(acquired, limiter.tryAcquireJobs("p", 1));
+    }
+
+    @Test
+    @DisplayName("字节数超出后欠账，还清前不再放行")
+    void bytesPerSecondDebt() throws InterruptedException {
+        PrintMetrics metrics = new PrintMetrics();
+        PrinterRateLimiter limiter = limiter(metrics, 0, 10000);
+
+        limiter.recordBytes("p", 12000);
+        long start = System.nanoTime();
+        limiter.awaitPermit("p");
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(waitedMillis >= 150, "应等待约200ms, 实际: " + waitedMillis);
+
+        // 不限作业数
+        assertEquals(100, limiter.tryAcquireJobs("p", 100));
+    }
+}
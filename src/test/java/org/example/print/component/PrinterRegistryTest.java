@@ -0,0 +1,81 @@
+package org.example.print.component;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.print.PrintService;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrinterRegistryTest {
+
+    private static PrintService printer(String name) {
+        return (PrintService) Proxy.newProxyInstance(PrintService.class.getClassLoader(),
+                new Class<?>[]{PrintService.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return name;
+                        case "hashCode":
+                            return name.hashCode();
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    @Test
+    @DisplayName("按名称查找只读缓存，找不到时后台刷新，打印机增减时推送事件")
+    void cachedLookupAndChangeDetection() {
+        AtomicReference<PrintService[]> installed = new AtomicReference<>(new PrintService[]{printer("GP-C58 Series")});
+        AtomicInteger lookups = new AtomicInteger();
+        List<Map<String, Object>> events = new ArrayList<>();
+        PrinterRegistry registry = new PrinterRegistry(() -> {
+            lookups.incrementAndGet();
+            return installed.get();
+        }, events::add, Runnable::run, 0);
+
+        registry.init();
+        assertEquals(1, lookups.get());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("GP-C58 Series", registry.find("gp-c58 series ").getName());
+        }
+        assertEquals(1, lookups.get());
+
+        // 新接入的打印机在下一次查找未命中时被发现
+        installed.set(new PrintService[]{printer("GP-C58 Series"), printer("Kitchen")});
+        assertNull(registry.find("Kitchen"));
+        assertEquals(2, lookups.get());
+        assertNotNull(registry.find("Kitchen"));
+        assertEquals(2, registry.getAll().size());
+
+        installed.set(new PrintService[]{printer("Kitchen")});
+        registry.refresh();
+        assertEquals(3, events.size());
+        assertEquals(1, ((Collection<?>) events.get(2).get("removed")).size());
+    }
+
+    @Test
+    @DisplayName("未命中触发的刷新受最小间隔限制")
+    void missRefreshIsRateLimited() {
+        AtomicInteger lookups = new AtomicInteger();
+        PrinterRegistry registry = new PrinterRegistry(() -> {
+            lookups.incrementAndGet();
+            return new PrintService[0];
+        }, event -> { }, Runnable::run, 60000);
+
+        registry.init();
+        for (int i = 0; i < 100; i++) {
+            assertNull(registry.find("missing"));
+        }
+        assertEquals(1, lookups.get());
+    }
+}
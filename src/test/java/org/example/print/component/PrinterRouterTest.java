@@ -0,0 +1,123 @@
+package org.example.print.component;
+
+import org.example.print.bean.PrintTask;
+import org.example.print.config.PrinterGroupProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrinterRouterTest {
+
+    private PrintQueue printQueue;
+    private PrinterCircuitBreaker circuitBreaker;
+    private PrinterRouter router;
+
+    @BeforeEach
+    void setUp() {
+        printQueue = new PrintQueue("default", 100, 5000);
+        PrinterGroupProperties properties = new PrinterGroupProperties();
+        properties.getGroups().put("counter", Arrays.asList("a", "b", "c"));
+        circuitBreaker = new PrinterCircuitBreaker(name -> false, event -> { }, 2, 30000);
+        router = new PrinterRouter(printQueue, properties, circuitBreaker);
+    }
+
+    private static PrintTask task(String id, String printerName) {
+        return PrintTask.builder().taskId(id).printerName(printerName).build();
+    }
+
+    @Test
+    @DisplayName("发往组的任务分配给队列最短的成员，普通打印机不变")
+    void routeToShortestQueue() {
+        printQueue.offer(task("a1", "a"));
+        printQueue.offer(task("a2", "a"));
+        printQueue.offer(task("b1", "b"));
+
+        PrintTask task = task("t", "counter");
+        router.route(task);
+        assertEquals("c", task.getPrinterName());
+        assertEquals("counter", task.getPrinterGroup());
+
+        PrintTask plain = task("p", "a");
+        router.route(plain);
+        assertEquals("a", plain.getPrinterName());
+        assertNull(plain.getPrinterGroup());
+    }
+
+    @Test
+    @DisplayName("队列相同时选平均耗时低的成员，已熔断的成员被跳过")
+    void preferFastAndHealthy() {
+        router.recordSuccess("a", 500);
+        router.recordSuccess("b", 100);
+        router.recordSuccess("c", 50);
+        circuitBreaker.recordFailure("c");
+        circuitBreaker.recordFailure("c");
+        assertFalse(router.isHealthy("c"));
+
+        PrintTask task = task("t", "counter");
+        router.route(task);
+        assertEquals("b", task.getPrinterName());
+
+        // 重试时按组重新路由
+        circuitBreaker.recordFailure("b");
+        circuitBreaker.recordFailure("b");
+        router.route(task);
+        assertEquals("a", task.getPrinterName());
+    }
+
+    @Test
+    @DisplayName("只在存在的成员中选择，没有存在的成员时不改写任务")
+    void skipMissingMembers() {
+        Set<String> present = new HashSet<>(Arrays.asList("a", "b", "c"));
+        PrinterGroupProperties properties = new PrinterGroupProperties();
+        properties.getGroups().put("counter", Arrays.asList("a", "b", "c"));
+        router = new PrinterRouter(printQueue, properties, circuitBreaker, present::contains);
+        printQueue.offer(task("b1", "b"));
+        printQueue.offer(task("c1", "c"));
+
+        // 队列最短的a已不存在
+        present.remove("a");
+        PrintTask task = task("t", "counter");
+        assertTrue(router.route(task));
+        assertEquals("b", task.getPrinterName());
+
+        // 全部不存在时保留原来的成员，不回退到组外的打印机
+        present.clear();
+        assertFalse(router.route(task));
+        assertEquals("b", task.getPrinterName());
+
+        PrintTask fresh = task("t2", "counter");
+        assertFalse(router.route(fresh));
+        assertEquals("counter", fresh.getPrinterName());
+    }
+
+    @Test
+    @DisplayName("健康快照未就绪(缺纸、脱机)的成员被跳过，全部未就绪时仍选负载最低的")
+    void skipNotReadyMembers() {
+        Set<String> notReady = new HashSet<>();
+        PrinterGroupProperties properties = new PrinterGroupProperties();
+        properties.getGroups().put("counter", Arrays.asList("a", "b", "c"));
+        router = new PrinterRouter(printQueue, properties, circuitBreaker, name -> true,
+                name -> !notReady.contains(name));
+        printQueue.offer(task("b1", "b"));
+        printQueue.offer(task("c1", "c"));
+        printQueue.offer(task("c2", "c"));
+
+        // 队列最短的a缺纸
+        notReady.add("a");
+        assertFalse(router.isHealthy("a"));
+        PrintTask task = task("t", "counter");
+        assertTrue(router.route(task));
+        assertEquals("b", task.getPrinterName());
+
+        notReady.addAll(Arrays.asList("b", "c"));
+        PrintTask fallback = task("t2", "counter");
+        assertTrue(router.route(fallback));
+        assertEquals("a", fallback.getPrinterName());
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.print.component;
+
+import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskPriority;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriorityAgingTaskQueueTest {
+
+    private static PrintTask task(String id, PrintTaskPriority priority) {
+        return PrintTask.builder().taskId(id).priority(priority).build();
+    }
+
+    @Test
+    @DisplayName("高优先级任务插队，同优先级先进先出")
+    void highPriorityJumpsAhead() {
+        PriorityAgingTaskQueue queue = new PriorityAgingTaskQueue(10, 1, TimeUnit.HOURS);
+        queue.offer(task("low", PrintTaskPriority.LOW));
+        queue.offer(task("medium-1", PrintTaskPriority.MEDIUM));
+        queue.offer(task("medium-2", null));
+        queue.offer(task("high", PrintTaskPriority.HIGH));
+
+        assertEquals("high", queue.poll().getTaskId());
+        assertEquals("medium-1", queue.poll().getTaskId());
+        assertEquals("medium-2", queue.poll().getTaskId());
+        assertEquals("low", queue.poll().getTaskId());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    @DisplayName("等待超过老化间隔的低优先级任务不再被插队")
+    void agedLowPriorityTaskIsNotStarved() throws InterruptedException {
+        PriorityAgingTaskQueue queue = new PriorityAgingTaskQueue(10, 10, TimeUnit.MILLISECONDS);
+        queue.offer(task("low", PrintTaskPriority.LOW));
+        Thread.sleep(50);
+        queue.offer(task("high", PrintTaskPriority.HIGH));
+
+        assertEquals("low", queue.poll().getTaskId());
+        assertEquals("high", queue.poll().getTaskId());
+    }
+
+    @Test
+    @DisplayName("队列满时offer失败")
+    void boundedCapacity() throws InterruptedException {
+        PriorityAgingTaskQueue queue = new PriorityAgingTaskQueue(1, 1, TimeUnit.SECONDS);
+        assertTrue(queue.offer(task("a", PrintTaskPriority.LOW)));
+        assertFalse(queue.offer(task("b", PrintTaskPriority.HIGH), 10, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.remainingCapacity());
+    }
+}
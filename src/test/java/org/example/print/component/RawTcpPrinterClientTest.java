@@ -0,0 +1,153 @@
+package org.example.print.component;
+
+import org.example.print.config.NetworkPrinterProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawTcpPrinterClientTest {
+
+    private ServerSocket server;
+    private Thread acceptor;
+    // 每个连接收到的字节
+    private final List<ByteArrayOutputStream> received = new CopyOnWriteArrayList<>();
+    private final List<Socket> accepted = new CopyOnWriteArrayList<>();
+    private volatile boolean reading = true;
+    private RawTcpPrinterClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new ServerSocket(0);
+        acceptor = new Thread(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    accepted.add(socket);
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    received.add(bytes);
+                    Thread reader = new Thread(() -> record(socket, bytes));
+                    reader.setDaemon(true);
+                    reader.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        NetworkPrinterProperties properties = new NetworkPrinterProperties();
+        properties.setWriteTimeout(300);
+        client = new RawTcpPrinterClient(properties);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.stop();
+        server.close();
+        for (Socket socket : accepted) {
+            socket.close();
+        }
+    }
+
+    private void record(Socket socket, ByteArrayOutputStream bytes) {
+        byte[] buffer = new byte[4096];
+        try (InputStream in = socket.getInputStream()) {
+            // 模拟卡纸的打印机：保持连接但不读数据
+            while (!reading && !socket.isClosed()) {
+                Thread.sleep(50);
+            }
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                synchronized (bytes) {
+                    bytes.write(buffer, 0, n);
+                }
+            }
+        } catch (IOException | InterruptedException ignored) {
+            // 连接被关闭
+        }
+    }
+
+    private InetSocketAddress address() {
+        return InetSocketAddress.createUnresolved("127.0.0.1", server.getLocalPort());
+    }
+
+    private String receivedOn(int connection, int expectedLength) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (received.size() > connection) {
+                ByteArrayOutputStream bytes = received.get(connection);
+                synchronized (bytes) {
+                    if (bytes.size() >= expectedLength) {
+                        return new String(bytes.toByteArray(), StandardCharsets.US_ASCII);
+                    }
+                }
+            }
+            Thread.sleep(10);
+        }
+        fail("没有收到预期的数据");
+        return null;
+    }
+
+    @Test
+    @DisplayName("多个作业复用同一连接并按顺序写入")
+    void reuseConnection() throws Exception {
+        client.send("p", address(), "first;".getBytes(StandardCharsets.US_ASCII)).get(5, TimeUnit.SECONDS);
+        client.send("p", address(), "second;".getBytes(StandardCharsets.US_ASCII)).get(5, TimeUnit.SECONDS);
+        client.send("p", address(), "third;".getBytes(StandardCharsets.US_ASCII)).get(5, TimeUnit.SECONDS);
+
+        assertEquals("first;second;third;", receivedOn(0, 19));
+        assertEquals(1, accepted.size());
+    }
+
+    @Test
+    @DisplayName("打印机关闭连接后自动重连")
+    void reconnectAfterPeerClose() throws Exception {
+        client.send("p", address(), "before;".getBytes(StandardCharsets.US_ASCII)).get(5, TimeUnit.SECONDS);
+        receivedOn(0, 7);
+        // 模拟打印机重启
+        accepted.get(0).close();
+        Thread.sleep(200);
+
+        client.send("p", address(), "after;".getBytes(StandardCharsets.US_ASCII)).get(5, TimeUnit.SECONDS);
+        assertEquals("after;", receivedOn(1, 6));
+    }
+
+    @Test
+    @DisplayName("打印机不读数据时写入超时失败")
+    void writeTimeout() {
+        reading = false;
+        byte[] large = new byte[64 * 1024 * 1024];
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> client.send("p", address(), large).get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof TimeoutException);
+    }
+
+    @Test
+    @DisplayName("连接不上时失败")
+    void connectRefused() throws IOException {
+        int port;
+        try (ServerSocket unused = new ServerSocket(0)) {
+            port = unused.getLocalPort();
+        }
+        InetSocketAddress closed = InetSocketAddress.createUnresolved("127.0.0.1", port);
+        assertThrows(ExecutionException.class,
+                () -> client.send("p", closed, new byte[0]).get(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.print.component;
+
+import org.example.print.bean.PrintTask;
+import org.example.print.template.RenderedContent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderedBytesCacheTest {
+
+    private static PrintTask task(String taskId, String content) {
+        return PrintTask.builder().taskId(taskId).content(content).build();
+    }
+
+    @Test
+    @DisplayName("同一任务再次渲染时命中，内容变化后不命中")
+    void hitAndContentChange() {
+        RenderedBytesCache cache = new RenderedBytesCache(true, 1);
+        PrintTask task = task("t1", "{\"orderNo\":\"A001\"}");
+        assertNull(cache.get(task, 384));
+
+        cache.put(task, 384, RenderedContent.of(new byte[]{1, 2, 3}));
+        assertArrayEquals(new byte[]{1, 2, 3}, cache.get(task, 384).toBytes());
+
+        task.setContent("{\"orderNo\":\"A002\"}");
+        assertNull(cache.get(task, 384));
+        assertNull(cache.get(task("t2", "{\"orderNo\":\"A001\"}"), 384));
+
+        assertEquals(1L, cache.getStatus().get("hits"));
+        assertEquals(3L, cache.getStatus().get("misses"));
+    }
+
+    @Test
+    @DisplayName("同一任务按不同纸宽分别缓存")
+    void keyedByWidth() {
+        RenderedBytesCache cache = new RenderedBytesCache(true, 1);
+        PrintTask task = task("t1", "{\"orderNo\":\"A001\"}");
+        cache.put(task, 384, RenderedContent.of(new byte[]{1}));
+
+        assertNull(cache.get(task, 576));
+        cache.put(task, 576, RenderedContent.of(new byte[]{2}));
+        assertArrayEquals(new byte[]{1}, cache.get(task, 384).toBytes());
+        assertArrayEquals(new byte[]{2}, cache.get(task, 576).toBytes());
+    }
+
+    @Test
+    @DisplayName("超过容量时淘汰最久未用的项")
+    void evictLeastRecentlyUsed() {
+        RenderedBytesCache cache = new RenderedBytesCache(true, 1);
+        byte[] half = new byte[400 * 1024];
+        PrintTask a = task("a", "a");
+        PrintTask b = task("b", "b");
+        PrintTask c = task("c", "c");
+        cache.put(a, 384, RenderedContent.of(half));
+        cache.put(b, 384, RenderedContent.of(half));
+        // 访问a后，b成为最久未用的项
+        cache.get(a, 384);
+        cache.put(c, 384, RenderedContent.of(half));
+
+        assertNotNull(cache.get(a, 384));
+        assertNull(cache.get(b, 384));
+        assertNotNull(cache.get(c, 384));
+        assertEquals(1L, cache.getStatus().get("evictions"));
+    }
+
+    @Test
+    @DisplayName("禁用时不缓存")
+    void disabled() {
+        RenderedBytesCache cache = new RenderedBytesCache(false, 1);
+        PrintTask task = task("t1", "x");
+        cache.put(task, 384, RenderedContent.of(new byte[]{1}));
+        assertNull(cache.get(task, 384));
+    }
+}
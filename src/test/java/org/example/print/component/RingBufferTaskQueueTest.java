@@ -0,0 +1,125 @@
+package org.example.print.component;
+
+import org.example.print.bean.PrintTask;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTaskQueueTest {
+
+    private static PrintTask task(String id) {
+        return PrintTask.builder().taskId(id).build();
+    }
+
+    @Test
+    @DisplayName("先进先出，满时offer失败，绕回后仍然有序")
+    void fifoAndWrapAround() {
+        RingBufferTaskQueue queue = new RingBufferTaskQueue(3, RingBufferTaskQueue.WaitStrategy.BLOCKING);
+        assertEquals(4, queue.remainingCapacity());
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(queue.offer(task(round + "-" + i)));
+            }
+            assertFalse(queue.offer(task("overflow")));
+            for (int i = 0; i < 4; i++) {
+                assertEquals(round + "-" + i, queue.poll().getTaskId());
+            }
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    @DisplayName("多生产者并发入队，单消费者不丢不重")
+    void concurrentProducers() throws InterruptedException {
+        for (RingBufferTaskQueue.WaitStrategy strategy : RingBufferTaskQueue.WaitStrategy.values()) {
+            RingBufferTaskQueue queue = new RingBufferTaskQueue(16, strategy);
+            int producers = 4;
+            int perProducer = 500;
+            Thread[] threads = new Thread[producers];
+            for (int p = 0; p < producers; p++) {
+                int id = p;
+                threads[p] = new Thread(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        try {
+                            queue.put(task(id + "-" + i));
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                });
+                threads[p].start();
+            }
+
+            Set<String> received = new HashSet<>();
+            for (int i = 0; i < producers * perProducer; i++) {
+                PrintTask task = queue.poll(5, TimeUnit.SECONDS);
+                assertNotNull(task, strategy.name());
+                assertTrue(received.add(task.getTaskId()), strategy.name());
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(queue.isEmpty(), strategy.name());
+        }
+    }
+
+    @Test
+    @DisplayName("删除中间的任务后出队跳过它，已出队的任务删除失败")
+    void removeLeavesTombstone() {
+        RingBufferTaskQueue queue = new RingBufferTaskQueue(4, RingBufferTaskQueue.WaitStrategy.BLOCKING);
+        PrintTask a = task("a");
+        PrintTask b = task("b");
+        PrintTask c = task("c");
+        queue.offer(a);
+        queue.offer(b);
+        queue.offer(c);
+
+        assertTrue(queue.remove(b));
+        assertFalse(queue.remove(b));
+        assertFalse(queue.contains(b));
+
+        assertSame(a, queue.poll());
+        assertFalse(queue.remove(a));
+        assertSame(c, queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    @DisplayName("BLOCKING策略下消费者一直挂起到入队时被唤醒，不依赖定时醒来")
+    void blockingConsumerSignalled() throws InterruptedException {
+        RingBufferTaskQueue queue = new RingBufferTaskQueue(4, RingBufferTaskQueue.WaitStrategy.BLOCKING);
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.offer(task("a"));
+        });
+        producer.start();
+
+        long start = System.nanoTime();
+        PrintTask task = queue.poll(30, TimeUnit.SECONDS);
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        producer.join();
+
+        assertEquals("a", task.getTaskId());
+        assertTrue(waitedMillis < 5000, "等待了" + waitedMillis + "ms");
+    }
+
+    @Test
+    @DisplayName("busy-spin需要显式允许")
+    void busySpinOptIn() {
+        assertThrows(IllegalArgumentException.class, () -> RingBufferTaskQueue.WaitStrategy.parse("busy-spin"));
+        assertEquals(RingBufferTaskQueue.WaitStrategy.BUSY_SPIN,
+                RingBufferTaskQueue.WaitStrategy.parse("busy-spin", true));
+        assertEquals(RingBufferTaskQueue.WaitStrategy.BLOCKING, RingBufferTaskQueue.WaitStrategy.parse(null));
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.print.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveThreadPoolExecutorTest {
+
+    @Test
+    @DisplayName("队列已满时外部线程立即收到拒绝，不阻塞等待")
+    void rejectWithoutBlockingWhenSaturated() throws InterruptedException {
+        AdaptiveThreadPoolExecutor executor = new AdaptiveThreadPoolExecutor(1, 1, 1, 200, 60000, "test-");
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Runnable blocked = () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            // 唯一的线程和队列都被占满
+            executor.execute(blocked);
+            executor.execute(blocked);
+
+            long start = System.nanoTime();
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("池内线程提交时队列已满则在当前线程执行")
+    void callerRunsInsidePool() throws InterruptedException {
+        AdaptiveThreadPoolExecutor executor = new AdaptiveThreadPoolExecutor(1, 1, 1, 200, 60000, "test-");
+        CountDownLatch queued = new CountDownLatch(1);
+        CountDownLatch nested = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                try {
+                    queued.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // 队列中已有一个任务，再提交只能在当前线程执行
+                executor.execute(nested::countDown);
+            });
+            executor.execute(() -> { });
+            queued.countDown();
+
+            assertTrue(nested.await(5, TimeUnit.SECONDS));
+            assertTrue((Long) executor.getStatus().get("callerRuns") > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("积压且排队超过目标延迟时扩容，空闲后缩回下限")
+    void growAndShrink() throws InterruptedException {
+        AdaptiveThreadPoolExecutor executor = new AdaptiveThreadPoolExecutor(1, 4, 100, 1, 10, "test-");
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            for (int i = 0; i < 20; i++) {
+                executor.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            // 唯一的线程阻塞，积压的任务排队时间不断变长
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (executor.getCorePoolSize() < 4 && System.nanoTime() < deadline) {
+                sleep(20);
+                executor.adjustIfDue();
+            }
+            release.countDown();
+            assertEquals(4, executor.getCorePoolSize());
+
+            deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (executor.getCorePoolSize() > 1 && System.nanoTime() < deadline) {
+                sleep(20);
+                executor.execute(() -> { });
+            }
+            assertEquals(1, executor.getCorePoolSize());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @DisplayName("通知线程池队列已满时由提交的线程执行，不丢弃任务")
+    void callerRunsWhenConfigured() throws InterruptedException {
+        AdaptiveThreadPoolExecutor executor = new AdaptiveThreadPoolExecutor(1, 1, 1, 200, 60000, "notify-",
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Runnable blocked = () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            executor.execute(blocked);
+            executor.execute(blocked);
+
+            AtomicReference<Thread> ranOn = new AtomicReference<>();
+            executor.execute(() -> ranOn.set(Thread.currentThread()));
+            assertSame(Thread.currentThread(), ranOn.get());
+            assertEquals("fixed", executor.getStatus().get("mode"));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
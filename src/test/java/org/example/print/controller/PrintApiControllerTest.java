@@ -0,0 +1,82 @@
+package org.example.print.controller;
+
+import org.example.print.bean.PrintTask;
+import org.example.print.component.PrintQueueManager;
+import org.example.print.component.PrintTaskIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrintApiControllerTest {
+
+    // 按taskId返回固定的取消结果，提交任务时按队列繁忙拒绝
+    private static PrintApiController controller(PrintTaskIndex.CancelResult cancelResult) {
+        PrintQueueManager printQueueManager = new PrintQueueManager(
+                null, null, null, null, null, null, null, null, null, null, null) {
+            @Override
+            public PrintTaskIndex.CancelResult cancelTask(String taskId) {
+                return cancelResult;
+            }
+
+            @Override
+            public boolean addPrintTask(PrintTask task, String idempotencyKey) {
+                throw new PrintQueueFullException("打印队列繁忙，请稍后重试", 7);
+            }
+
+            @Override
+            public PrintTask reprintTask(String taskId, String printerName) {
+                throw new PrintTaskException("打印机组没有可用的打印机: kitchen");
+            }
+        };
+        return new PrintApiController(printQueueManager, null, null, null, null, null, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> body(ResponseEntity<?> response) {
+        return (Map<String, Object>) response.getBody();
+    }
+
+    @Test
+    @DisplayName("取消结果映射为200、409和404")
+    void cancelStatusMapping() {
+        ResponseEntity<?> cancelled = controller(PrintTaskIndex.CancelResult.CANCELLED).cancelTask("t1");
+        assertEquals(HttpStatus.OK, cancelled.getStatusCode());
+        assertEquals(true, body(cancelled).get("success"));
+        assertEquals("CANCELLED", body(cancelled).get("status"));
+
+        ResponseEntity<?> printing = controller(PrintTaskIndex.CancelResult.PRINTING).cancelTask("t1");
+        assertEquals(HttpStatus.CONFLICT, printing.getStatusCode());
+        assertEquals("PRINTING", body(printing).get("status"));
+
+        ResponseEntity<?> completed = controller(PrintTaskIndex.CancelResult.COMPLETED).cancelTask("t1");
+        assertEquals(HttpStatus.CONFLICT, completed.getStatusCode());
+
+        ResponseEntity<?> notFound = controller(PrintTaskIndex.CancelResult.NOT_FOUND).cancelTask("t1");
+        assertEquals(HttpStatus.NOT_FOUND, notFound.getStatusCode());
+        assertEquals(false, body(notFound).get("success"));
+    }
+
+    @Test
+    @DisplayName("队列繁忙时返回429和Retry-After")
+    void tooManyRequests() {
+        ResponseEntity<?> response = controller(PrintTaskIndex.CancelResult.NOT_FOUND)
+                .addPrintTask(PrintTask.builder().taskId("t1").content("{}").build(), null);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("7", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(7, body(response).get("retryAfter"));
+    }
+
+    @Test
+    @DisplayName("重打时打印机组没有可用的打印机返回422")
+    void reprintUnprocessable() {
+        ResponseEntity<?> response = controller(PrintTaskIndex.CancelResult.NOT_FOUND).reprintTask("t1", null);
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals(false, body(response).get("success"));
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.print.service;
+
+import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskStatus;
+import org.example.print.component.PrintQueueManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemoteDataServiceTest {
+
+    // 入队的任务
+    private final List<String> added = new ArrayList<>();
+    // 确认接收的任务
+    private final List<String> received = new ArrayList<>();
+    // 上报给服务器的状态
+    private final List<String> reported = new ArrayList<>();
+    // 安排的延迟操作及其延迟(秒)，由测试手动执行
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+    // 提交时按队列繁忙拒绝的任务
+    private final Set<String> busy = new HashSet<>();
+    private List<PrintTask> pending = Collections.emptyList();
+
+    private ScheduledThreadPoolExecutor scheduler;
+    private RemoteDataService service;
+
+    @BeforeEach
+    void setUp() {
+        PrintQueueManager printQueueManager = new PrintQueueManager(
+                null, null, null, null, null, null, null, null, null, null, null) {
+            @Override
+            public boolean addPrintTask(PrintTask task) {
+                if (busy.contains(task.getTaskId())) {
+                    throw new PrintQueueFullException("打印队列繁忙，请稍后重试", 3);
+                }
+                added.add(task.getTaskId());
+                return true;
+            }
+        };
+        scheduler = new ScheduledThreadPoolExecutor(1) {
+            @Override
+            public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+                scheduled.add(command);
+                delays.add(unit.toSeconds(delay));
+                return null;
+            }
+        };
+        service = new RemoteDataService(printQueueManager, null, scheduler) {
+            @Override
+            public List<PrintTask> fetchPrintTasks() {
+                return pending;
+            }
+
+            @Override
+            void notifyTaskReceived(String taskId) {
+                received.add(taskId);
+            }
+
+            @Override
+            public void updateTaskStatus(String taskId, PrintTaskStatus status) {
+                reported.add(taskId + ":" + status);
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private static PrintTask task(String id) {
+        return PrintTask.builder().taskId(id).content("{}").printerName("p1").build();
+    }
+
+    @Test
+    @DisplayName("同步时队列繁忙的任务不确认接收，继续处理其余任务，并按Retry-After提前再同步")
+    void syncSkipsBusyTasks() {
+        pending = Arrays.asList(task("a"), task("b"), task("c"));
+        busy.add("b");
+
+        service.syncPrintTasks();
+
+        assertEquals(Arrays.asList("a", "c"), added);
+        assertEquals(Arrays.asList("a", "c"), received);
+        assertEquals(1, scheduled.size());
+        assertEquals(3L, delays.get(0));
+
+        // 队列回落后再次同步，剩下的任务入队并确认
+        busy.clear();
+        pending = Collections.singletonList(task("b"));
+        scheduled.get(0).run();
+        assertEquals(Arrays.asList("a", "c", "b"), added);
+        assertEquals(Arrays.asList("a", "c", "b"), received);
+    }
+
+    @Test
+    @DisplayName("推送的任务被拒绝时稍后重新提交，多次被拒绝后向服务器报告失败")
+    void pushedTaskResubmitted() {
+        busy.add("a");
+        service.submitPushedTask(task("a"), 0);
+        assertTrue(added.isEmpty());
+        assertEquals(1, scheduled.size());
+        assertEquals(3L, delays.get(0));
+
+        busy.clear();
+        scheduled.get(0).run();
+        assertEquals(Collections.singletonList("a"), added);
+        assertTrue(reported.isEmpty());
+
+        busy.add("b");
+        service.submitPushedTask(task("b"), 0);
+        // 每次重新提交仍被拒绝时会再安排下一次，直到达到上限
+        for (int i = 1; i < scheduled.size(); i++) {
+            scheduled.get(i).run();
+        }
+        assertEquals(Collections.singletonList("b:FAILED"), reported);
+    }
+}
@@ -0,0 +1,238 @@
+package org.example.print.service;
+
+import com.alibaba.fastjson2.JSONObject;
+import org.example.print.backend.PrinterBackend;
+import org.example.print.bean.PrintTask;
+import org.example.print.bean.PrintTaskStatus;
+import org.example.print.component.PrintMetrics;
+import org.example.print.component.PrintQueue;
+import org.example.print.component.PrintTaskPersistence;
+import org.example.print.component.PrinterHealthMonitor.PrinterHealth;
+import org.example.print.component.PrinterRateLimiter;
+import org.example.print.component.RenderedBytesCache;
+import org.example.print.config.JacksonConfig;
+import org.example.print.config.PrinterPaperProperties;
+import org.example.print.config.PrinterRateLimitProperties;
+import org.example.print.template.ReceiptRenderer;
+import org.example.print.template.ReceiptTemplate;
+import org.example.print.template.RenderedContent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnifiedPrintServiceTest {
+
+    private static final String PRINTER = "p1";
+    private static final byte[] RECEIPT = "RECEIPT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CUT_PAPER = {0x1D, 0x56, 0x42, 0x00};
+    private static final byte[] FEED_LINES = {0x1B, 0x64, 0x04};
+
+    @TempDir
+    File baseDir;
+
+    private UnifiedPrintService printService;
+    private final AtomicInteger renders = new AtomicInteger();
+    // 每次渲染使用的每行点数
+    private final List<Integer> widths = new CopyOnWriteArrayList<>();
+    // 提交给打印后端的作业
+    private final List<byte[]> jobs = new CopyOnWriteArrayList<>();
+    private boolean cutter = true;
+
+    @BeforeEach
+    void setUp() {
+        PrintQueue printQueue = new PrintQueue(PRINTER, 100, 5000);
+        PrintMetrics printMetrics = new PrintMetrics();
+        PrinterBackend backend = new PrinterBackend() {
+            @Override
+            public String getType() {
+                return "test";
+            }
+
+            @Override
+            public CompletableFuture<Completion> submit(String printerName, byte[] data) {
+                jobs.add(data);
+                return CompletableFuture.completedFuture(Completion.CONFIRMED);
+            }
+
+            @Override
+            public PrinterHealth getStatus(String printerName) {
+                return new PrinterHealth(printerName, true, "idle", Collections.emptyList(), System.currentTimeMillis());
+            }
+
+            @Override
+            public PrinterHealth probe(String printerName) {
+                return getStatus(printerName);
+            }
+
+            @Override
+            public Capabilities getCapabilities(String printerName) {
+                return new Capabilities("test", cutter);
+            }
+        };
+
+        printService = new UnifiedPrintService();
+        ReflectionTestUtils.setField(printService, "maxCopies", 3);
+        ReflectionTestUtils.setField(printService, "configuredPrinterName", PRINTER);
+        ReflectionTestUtils.setField(printService, "printMetrics", printMetrics);
+        ReflectionTestUtils.setField(printService, "printTaskPersistence",
+                new PrintTaskPersistence(new JacksonConfig().objectMapper(), baseDir));
+        ReflectionTestUtils.setField(printService, "rateLimiter",
+                new PrinterRateLimiter(printQueue, printMetrics, new PrinterRateLimitProperties()));
+        ReflectionTestUtils.setField(printService, "backend", backend);
+        ReflectionTestUtils.setField(printService, "receiptRenderer", renderer("{{orderNo}}", true));
+        ReflectionTestUtils.setField(printService, "paperProperties", new PrinterPaperProperties());
+        // 关闭渲染结果缓存，确保多份不靠缓存也只渲染一次
+        ReflectionTestUtils.setField(printService, "renderedBytesCache", new RenderedBytesCache(false, 8));
+        ReflectionTestUtils.setField(printService, "printIoExecutor", (Executor) Runnable::run);
+    }
+
+    // 记录渲染次数的小票渲染，fixed为true时输出固定内容，否则按模板渲染
+    private ReceiptRenderer renderer(String template, boolean fixed) {
+        return new ReceiptRenderer(ReceiptTemplate.compile(template)) {
+            @Override
+            public RenderedContent renderContent(JSONObject data, int dotsPerLine) {
+                renders.incrementAndGet();
+                widths.add(dotsPerLine);
+                return fixed ? RenderedContent.of(RECEIPT.clone()) : super.renderContent(data, dotsPerLine);
+            }
+        };
+    }
+
+    private static PrintTask task(String id, int copies) {
+        return PrintTask.builder()
+                .taskId(id)
+                .content("{\"orderNo\":\"" + id + "\"}")
+                .printerName(PRINTER)
+                .status(PrintTaskStatus.PRINTING)
+                .copies(copies)
+                .createTime(LocalDateTime.now())
+                .build();
+    }
+
+    // 份数之间插入分隔指令的预期作业内容
+    private static byte[] repeated(int copies, byte[] separator) {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < copies; i++) {
+            if (i > 0) {
+                expected.write(separator, 0, separator.length);
+            }
+            expected.write(RECEIPT, 0, RECEIPT.length);
+        }
+        return expected.toByteArray();
+    }
+
+    @Test
+    @DisplayName("份数解析：无法识别或小于1时按1份")
+    void parseCopies() {
+        assertEquals(1, PrintTask.parseCopies(null));
+        assertEquals(1, PrintTask.parseCopies("abc"));
+        assertEquals(1, PrintTask.parseCopies("2.5"));
+        assertEquals(1, PrintTask.parseCopies(0));
+        assertEquals(1, PrintTask.parseCopies(-3));
+        assertEquals(3, PrintTask.parseCopies(" 3 "));
+        assertEquals(5, PrintTask.parseCopies(5));
+    }
+
+    @Test
+    @DisplayName("多份只渲染一次，作为一个作业重复写入，每份之间切纸")
+    void copiesRenderedOnceInOneJob() {
+        List<UnifiedPrintService.PrintResult> results =
+                printService.executeBatch(Collections.singletonList(task("a", 3))).join();
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(1, renders.get());
+        assertEquals(1, jobs.size());
+        assertArrayEquals(repeated(3, CUT_PAPER), jobs.get(0));
+    }
+
+    @Test
+    @DisplayName("打印完成后记录完成状态失败时任务仍按成功处理，不会重试重复打印")
+    void bookkeepingFailureKeepsSuccess() {
+        PrintTask task = task("a", 1);
+        // 没有创建时间时生成持久化文件名失败
+        task.setCreateTime(null);
+        List<UnifiedPrintService.PrintResult> results =
+                printService.executeBatch(Collections.singletonList(task)).join();
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(0).isPrinterFault());
+        assertEquals(PrintTaskStatus.COMPLETED, task.getStatus());
+        assertEquals(1, jobs.size());
+    }
+
+    @Test
+    @DisplayName("打印机没有切刀时份数之间走纸")
+    void feedLinesWithoutCutter() {
+        cutter = false;
+        printService.executeBatch(Collections.singletonList(task("a", 2))).join();
+
+        assertEquals(1, jobs.size());
+        assertArrayEquals(repeated(2, FEED_LINES), jobs.get(0));
+    }
+
+    @Test
+    @DisplayName("份数超过print.max-copies时按上限打印")
+    void copiesCappedAtMax() {
+        printService.executeBatch(Collections.singletonList(task("a", 50))).join();
+
+        assertEquals(1, renders.get());
+        assertEquals(1, jobs.size());
+        assertArrayEquals(repeated(3, CUT_PAPER), jobs.get(0));
+    }
+
+    @Test
+    @DisplayName("重打命中渲染结果缓存，改投不同纸宽的打印机时重新渲染")
+    void renderCacheKeyedByWidth() {
+        PrinterPaperProperties paperProperties = new PrinterPaperProperties();
+        paperProperties.getPrinters().put("p2", 576);
+        ReflectionTestUtils.setField(printService, "paperProperties", paperProperties);
+        ReflectionTestUtils.setField(printService, "renderedBytesCache", new RenderedBytesCache(true, 8));
+        PrintTask task = task("a", 1);
+
+        printService.executeBatch(Collections.singletonList(task)).join();
+        printService.executeBatch(Collections.singletonList(task)).join();
+        assertEquals(1, renders.get());
+
+        task.setPrinterName("p2");
+        printService.executeBatch(Collections.singletonList(task)).join();
+        assertEquals(2, renders.get());
+        assertEquals(Arrays.asList(384, 576), widths);
+    }
+
+    @Test
+    @DisplayName("模板含{{now}}时仍缓存渲染结果，重打时插入当前时间")
+    void timeInsertedIntoCachedReceipt() throws InterruptedException {
+        ReflectionTestUtils.setField(printService, "receiptRenderer", renderer("{{orderNo}} {{now}}", false));
+        ReflectionTestUtils.setField(printService, "renderedBytesCache", new RenderedBytesCache(true, 8));
+        PrintTask task = task("a", 1);
+
+        printService.executeBatch(Collections.singletonList(task)).join();
+        // 等到下一秒，重打的时间应与第一次不同
+        Thread.sleep(1100);
+        printService.executeBatch(Collections.singletonList(task)).join();
+
+        assertEquals(1, renders.get());
+        assertEquals(1, printService.getRenderCacheStatus().get("entries"));
+        String first = new String(jobs.get(0), StandardCharsets.US_ASCII);
+        String second = new String(jobs.get(1), StandardCharsets.US_ASCII);
+        assertTrue(first.matches("a \\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}"), first);
+        assertTrue(second.matches("a \\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}"), second);
+        assertNotEquals(first, second);
+    }
+}
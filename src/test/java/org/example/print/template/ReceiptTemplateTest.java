@@ -0,0 +1,129 @@
+package org.example.print.template;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.charset.Charset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptTemplateTest {
+
+    private static final Charset GBK = Charset.forName("GBK");
+
+    private static String render(String source, JSONObject data) {
+        return new String(new ReceiptRenderer(ReceiptTemplate.compile(source)).render(data), GBK);
+    }
+
+    @Test
+    @DisplayName("字段、子串和重复段")
+    void fieldsAndSections() {
+        JSONObject data = new JSONObject();
+        data.put("orderTime", "2025-01-14 17:59:16");
+        data.put("goods", "羊肉串 x10, 烤茄子 x1, ");
+        data.put("merchant", "赤壁老街");
+
+        String text = render("{{merchant}}|{{orderTime|5,16}}|{{missing}}|{{merchant|2,100}}\n"
+                + "{{#goods}}  {{.}}\n{{/goods}}end", data);
+
+        assertEquals("赤壁老街|01-14 17:59||老街\n  羊肉串 x10\n  烤茄子 x1\nend", text);
+    }
+
+    @Test
+    @DisplayName("数组元素为对象时段内字段从元素读取")
+    void arrayOfObjects() {
+        JSONArray goods = new JSONArray();
+        goods.add(JSONObject.of("name", "可乐", "count", 2));
+        goods.add(JSONObject.of("name", "雪碧", "count", 1));
+        JSONObject data = JSONObject.of("goods", goods);
+
+        assertEquals("可乐*2;雪碧*1;", render("{{#goods}}{{name}}*{{count}};{{/goods}}", data));
+    }
+
+    @Test
+    @DisplayName("指令编译为ESC/POS字节")
+    void commands() {
+        byte[] bytes = new ReceiptRenderer(ReceiptTemplate.compile("{{@large}}A{{@normal}}"))
+                .render(new JSONObject());
+        assertArrayEquals(new byte[]{0x1B, 0x21, 0x10, 'A', 0x1B, 0x21, 0x00}, bytes);
+    }
+
+    @Test
+    @DisplayName("缓冲区不够时自动扩容，复用后不残留上次内容")
+    void growAndReuse() {
+        ReceiptRenderer renderer = new ReceiptRenderer(ReceiptTemplate.compile("{{text}}"));
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            large.append("中");
+        }
+        assertEquals(6000, renderer.render(JSONObject.of("text", large.toString())).length);
+        assertEquals("ab", new String(renderer.render(JSONObject.of("text", "ab")), GBK));
+    }
+
+    @Test
+    @DisplayName("默认模板包含订单各字段")
+    void defaultTemplate() {
+        ReceiptRenderer renderer = new ReceiptRenderer(new DefaultResourceLoader(),
+                "classpath:print-templates/receipt.tpl");
+        JSONObject data = new JSONObject();
+        data.put("merchant", "赤壁老街");
+        data.put("orderNo", "A001");
+        data.put("orderTime", "2025-01-14 17:59:16");
+        data.put("goods", "羊肉串 x10, 烤茄子 x1");
+
+        String text = new String(renderer.render(data), GBK);
+
+        assertTrue(text.contains("订单号: A001\n"));
+        assertTrue(text.contains("下单时间: 01-14 17:59\n  羊肉串 x10\n  烤茄子 x1\n配送费: "));
+        assertTrue(text.endsWith("-----------------------------\n\n\n"));
+    }
+
+    @Test
+    @DisplayName("图片块按字段值取图片，字段不存在时按块名称取预置图片")
+    void imageBlocks() {
+        ReceiptTemplate template = ReceiptTemplate.compile("{{@center}}{{image:logo}}{{@left}}A");
+        ReceiptRenderer renderer = new ReceiptRenderer(template, (name, value, dotsPerLine) ->
+                "logo".equals(name) ? new byte[]{(byte) (value == null ? 1 : 2), (byte) (dotsPerLine / 8)} : null);
+
+        assertArrayEquals(new byte[]{0x1B, 0x61, 0x01, 1, 48, 0x1B, 0x61, 0x00, 'A'}, renderer.render(new JSONObject()));
+        assertArrayEquals(new byte[]{0x1B, 0x61, 0x01, 2, 48, 0x1B, 0x61, 0x00, 'A'},
+                renderer.render(JSONObject.of("logo", "store-1")));
+        // 图片按目标打印机的纸宽缩放
+        assertArrayEquals(new byte[]{0x1B, 0x61, 0x01, 1, 72, 0x1B, 0x61, 0x00, 'A'},
+                renderer.render(new JSONObject(), 576));
+        // 没有图片来源时图片块不输出
+        assertArrayEquals(new byte[]{0x1B, 0x61, 0x01, 0x1B, 0x61, 0x00, 'A'},
+                new ReceiptRenderer(template).render(new JSONObject()));
+    }
+
+    @Test
+    @DisplayName("渲染结果在{{now}}处分段，输出时插入当前时间")
+    void timeSegments() {
+        ReceiptRenderer renderer = new ReceiptRenderer(
+                ReceiptTemplate.compile("{{orderNo}}{{#goods}}[{{now}}]{{/goods}}"));
+        JSONObject data = JSONObject.of("orderNo", "A001", "goods", "x, y");
+
+        RenderedContent content = renderer.renderContent(data, ReceiptTemplate.DEFAULT_DOTS_PER_LINE);
+        assertEquals("A001[][]".length(), content.size());
+        String time = "\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}";
+        assertTrue(new String(content.toBytes(), GBK).matches("A001\\[" + time + "]\\[" + time + "]"));
+        assertTrue(new String(renderer.render(data), GBK).matches("A001\\[" + time + "]\\[" + time + "]"));
+        // 没有{{now}}时只有一段，直接返回
+        RenderedContent plain = new ReceiptRenderer(ReceiptTemplate.compile("{{orderNo}}"))
+                .renderContent(data, ReceiptTemplate.DEFAULT_DOTS_PER_LINE);
+        assertSame(plain.toBytes(), plain.toBytes());
+    }
+
+    @Test
+    @DisplayName("模板语法错误在编译时报告")
+    void syntaxErrors() {
+        assertThrows(IllegalArgumentException.class, () -> ReceiptTemplate.compile("{{#goods}}x"));
+        assertThrows(IllegalArgumentException.class, () -> ReceiptTemplate.compile("{{@blink}}"));
+        assertThrows(IllegalArgumentException.class, () -> ReceiptTemplate.compile("{{name"));
+        assertThrows(IllegalArgumentException.class, () -> ReceiptTemplate.compile("x{{/goods}}"));
+        assertThrows(IllegalArgumentException.class, () -> ReceiptTemplate.compile("{{image:}}"));
+    }
+}